@@ -0,0 +1,102 @@
+package com.m3.veilchat.repositories;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the expiry sweep against the local Firestore emulator.
+ * Start it with `firebase emulators:start --only firestore` before running this test.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExpirySweeperTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static FirebaseFirestore firestore;
+
+    @BeforeClass
+    public static void connectToEmulator() {
+        firestore = FirebaseFirestore.getInstance();
+        // 10.0.2.2 is the host machine as seen from the Android emulator
+        firestore.useEmulator("10.0.2.2", 8080);
+    }
+
+    @Test
+    public void sweepOnlyTouchesExpiredDocuments() throws Exception {
+        long now = System.currentTimeMillis();
+        String expiredRoom = createRoom(now - 1000);
+        String liveRoom = createRoom(now + 60000);
+        String expiredMessage = createMessage(now - 1000);
+        String permanentMessage = createMessage(0);
+
+        await(new ExpirySweeper(firestore).sweep());
+
+        assertFalse(get("chat_rooms", expiredRoom).exists());
+        assertTrue(get("chat_rooms", liveRoom).exists());
+        assertFalse(get("messages", expiredMessage).exists());
+        assertTrue(get("messages", permanentMessage).exists());
+    }
+
+    @Test
+    public void sweepPagesThroughMoreThanOneBatch() throws Exception {
+        long expiredAt = System.currentTimeMillis() - 1000;
+        String roomId = UUID.randomUUID().toString();
+        WriteBatch batch = firestore.batch();
+        for (int i = 0; i <= ExpirySweeper.BATCH_SIZE; i++) {
+            Map<String, Object> message = new HashMap<>();
+            message.put("roomId", roomId);
+            message.put("expiresAt", expiredAt);
+            batch.set(firestore.collection("messages").document(), message);
+        }
+        await(batch.commit());
+
+        await(new ExpirySweeper(firestore).sweep());
+
+        QuerySnapshot remaining = await(firestore.collection("messages")
+                .whereEqualTo("roomId", roomId)
+                .get());
+        assertTrue(remaining.isEmpty());
+    }
+
+    private String createRoom(long expiresAt) throws Exception {
+        String roomId = UUID.randomUUID().toString();
+        Map<String, Object> room = new HashMap<>();
+        room.put("isActive", true);
+        room.put("expiresAt", expiresAt);
+        await(firestore.collection("chat_rooms").document(roomId).set(room));
+        return roomId;
+    }
+
+    private String createMessage(long expiresAt) throws Exception {
+        String messageId = UUID.randomUUID().toString();
+        Map<String, Object> message = new HashMap<>();
+        message.put("roomId", "sweeper-test");
+        message.put("expiresAt", expiresAt);
+        await(firestore.collection("messages").document(messageId).set(message));
+        return messageId;
+    }
+
+    private DocumentSnapshot get(String collection, String id) throws Exception {
+        return await(firestore.collection(collection).document(id).get());
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
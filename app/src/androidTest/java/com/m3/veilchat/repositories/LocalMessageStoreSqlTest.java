@@ -0,0 +1,172 @@
+package com.m3.veilchat.repositories;
+
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.m3.veilchat.models.Message;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the search and expiry SQL against the real SQLCipher database on the device.
+ * Each test searches for its own random word, so rows left by other tests never match.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalMessageStoreSqlTest {
+    private LocalMessageStore store;
+    private String word;
+    private final List<String> messageIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        store = LocalMessageStore.getInstance(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        word = "w" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @After
+    public void tearDown() {
+        store.deleteMessages(messageIds);
+    }
+
+    @Test
+    public void searchSkipsExpiredMessagesNewestFirst() {
+        long now = System.currentTimeMillis();
+        Message permanent = message(word + " permanent", now - 2000, 0);
+        Message live = message(word + " live", now - 1000, now + 60000);
+        Message expired = message(word + " expired", now, now - 1000);
+        store.putMessages(Arrays.asList(permanent, live, expired));
+
+        List<Message> results = store.searchMessages(word.substring(0, 8), 10);
+
+        assertEquals(2, results.size());
+        assertEquals(live.getMessageId(), results.get(0).getMessageId());
+        assertEquals(permanent.getMessageId(), results.get(1).getMessageId());
+        assertEquals(word + " live", results.get(0).getContent());
+    }
+
+    @Test
+    public void searchMatchesEveryWordAsPrefix() {
+        long now = System.currentTimeMillis();
+        Message both = message(word + " meeting tomorrow", now, 0);
+        Message one = message(word + " meeting", now, 0);
+        store.putMessages(Arrays.asList(both, one));
+
+        List<Message> results = store.searchMessages(word + " tomor", 10);
+
+        assertEquals(1, results.size());
+        assertEquals(both.getMessageId(), results.get(0).getMessageId());
+    }
+
+    @Test
+    public void deleteExpiredMessagesRemovesTheirIndexRows() {
+        long now = System.currentTimeMillis();
+        Message expired = message(word, now, now - 1000);
+        Message live = message(word, now, now + 60000);
+        store.putMessages(Arrays.asList(expired, live));
+
+        store.deleteExpiredMessages();
+
+        // The index rows are found through the messages table, so they have to go first
+        assertEquals(0, orphanIndexRows());
+        assertEquals(0, messageRows(expired.getMessageId()));
+        assertEquals(1, indexRows(live.getMessageId()));
+        assertEquals(1, messageRows(live.getMessageId()));
+    }
+
+    @Test
+    public void deleteMessagesRemovesTheirIndexRows() {
+        Message message = message(word, System.currentTimeMillis(), 0);
+        store.putMessages(Arrays.asList(message));
+
+        store.deleteMessages(Arrays.asList(message.getMessageId()));
+
+        assertEquals(0, orphanIndexRows());
+        assertEquals(0, messageRows(message.getMessageId()));
+        assertTrue(store.searchMessages(word, 10).isEmpty());
+    }
+
+    @Test
+    public void rewritingAMessageReplacesItsIndexRow() {
+        Message message = message(word + " before", System.currentTimeMillis(), 0);
+        store.putMessages(Arrays.asList(message));
+        message.setContent(word + " after");
+        store.putMessages(Arrays.asList(message));
+
+        assertEquals(1, indexRows(message.getMessageId()));
+        assertEquals(0, orphanIndexRows());
+        assertTrue(store.searchMessages(word + " before", 10).isEmpty());
+        assertEquals(1, store.searchMessages(word + " after", 10).size());
+    }
+
+    @Test
+    public void systemMessagesAreNotIndexed() {
+        Message message = message(word, System.currentTimeMillis(), 0);
+        message.setMessageType("system");
+        store.putMessages(Arrays.asList(message));
+
+        assertEquals(1, messageRows(message.getMessageId()));
+        assertEquals(0, indexRows(message.getMessageId()));
+    }
+
+    @Test
+    public void blinkMessagesAreNotStored() {
+        Message message = message(word, System.currentTimeMillis(), System.currentTimeMillis() + 60000);
+        message.setRules("blink");
+        store.putMessages(Arrays.asList(message));
+
+        assertEquals(0, messageRows(message.getMessageId()));
+        assertTrue(store.searchMessages(word, 10).isEmpty());
+    }
+
+    private Message message(String content, long timestamp, long expiresAt) {
+        Message message = new Message("room-" + word, "sender", content);
+        message.setMessageId(UUID.randomUUID().toString());
+        message.setTimestamp(timestamp);
+        message.setExpiresAt(expiresAt);
+        messageIds.add(message.getMessageId());
+        return message;
+    }
+
+    private int indexRows(String messageId) {
+        return count("SELECT COUNT(*) FROM message_search "
+                + "JOIN messages ON messages.rowid = message_search.docid WHERE messages.message_id = ?", messageId);
+    }
+
+    // Index rows whose messages row is gone
+    private int orphanIndexRows() {
+        Cursor cursor = store.db().rawQuery(
+                "SELECT COUNT(*) FROM message_search WHERE docid NOT IN (SELECT rowid FROM messages)", null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int messageRows(String messageId) {
+        return count("SELECT COUNT(*) FROM messages WHERE message_id = ?", messageId);
+    }
+
+    private int count(String sql, String messageId) {
+        Cursor cursor = store.db().rawQuery(sql, new String[]{messageId});
+        try {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.m3.veilchat;
 
 import android.app.Application;
 import com.m3.veilchat.repositories.ChatRepository;
+import com.m3.veilchat.utils.SecurePrefsManager;
 
 public class VeilChatApplication extends Application {
     private ChatRepository chatRepository;
@@ -9,8 +10,9 @@ public class VeilChatApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
-        // Initialize global components
-        chatRepository = new ChatRepository();
+        // Initialize global components; secure settings start loading in the background
+        SecurePrefsManager.getInstance(this);
+        chatRepository = ChatRepository.getInstance(this);
     }
 
     @Override
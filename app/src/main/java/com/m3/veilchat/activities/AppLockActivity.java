@@ -15,6 +15,9 @@ import androidx.core.content.ContextCompat;
 
 import com.m3.veilchat.R;
 import com.m3.veilchat.databinding.ActivityAppLockBinding;
+import com.m3.veilchat.repositories.ChatRepository;
+import com.m3.veilchat.repositories.LocalMessageStore;
+import com.m3.veilchat.utils.MessageDecryptor;
 import com.m3.veilchat.utils.SecurePrefsManager;
 
 import java.util.concurrent.Executor;
@@ -36,15 +39,32 @@ public class AppLockActivity extends AppCompatActivity {
         binding = ActivityAppLockBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        securePrefsManager = new SecurePrefsManager(this);
+        securePrefsManager = SecurePrefsManager.getInstance(this);
         executor = ContextCompat.getMainExecutor(this);
 
         isSettingUp = getIntent().getBooleanExtra("setup", false);
 
+        if (!isSettingUp) {
+            // Nothing decrypted should stay in memory while the app is locked
+            MessageDecryptor.getInstance(this).clearCache();
+            ChatRepository.getInstance(this).clearDecryptedMessages();
+            LocalMessageStore.getInstance(this).close();
+        }
+
         initializeUI();
         setupClickListeners();
 
-        if (!isSettingUp && isBiometricAvailable() && securePrefsManager.isBiometricEnabled()) {
+        if (!isSettingUp) {
+            // On a cold start the settings may still be loading; don't hold the first frame for them
+            securePrefsManager.whenLoaded(this::offerBiometric);
+        }
+    }
+
+    private void offerBiometric() {
+        if (isFinishing() || isDestroyed()) return;
+        boolean biometric = isBiometricAvailable() && securePrefsManager.isBiometricEnabled();
+        binding.btnBiometric.setVisibility(biometric ? View.VISIBLE : View.GONE);
+        if (biometric) {
             showBiometricPrompt();
         }
     }
@@ -58,7 +78,8 @@ public class AppLockActivity extends AppCompatActivity {
         } else {
             binding.tvTitle.setText("Unlock VEIL");
             binding.tvDescription.setText("Enter your PIN to continue");
-            binding.btnBiometric.setVisibility(isBiometricAvailable() && securePrefsManager.isBiometricEnabled() ? View.VISIBLE : View.GONE);
+            // Shown by offerBiometric once the settings are loaded
+            binding.btnBiometric.setVisibility(View.GONE);
         }
 
         updatePasswordDots();
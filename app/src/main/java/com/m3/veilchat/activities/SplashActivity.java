@@ -9,6 +9,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.m3.veilchat.R;
+import com.m3.veilchat.utils.SecurePrefsManager;
 import com.m3.veilchat.viewmodels.AuthViewModel;
 
 public class SplashActivity extends AppCompatActivity {
@@ -22,11 +23,13 @@ public class SplashActivity extends AppCompatActivity {
         AuthViewModel authViewModel = new ViewModelProvider(this).get(AuthViewModel.class);
 
         new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            checkAuthStatus(authViewModel);
+            // Leave only once the settings are loaded, so later screens never wait reading them
+            SecurePrefsManager.getInstance(this).whenLoaded(() -> checkAuthStatus(authViewModel));
         }, SPLASH_DELAY);
     }
 
     private void checkAuthStatus(AuthViewModel authViewModel) {
+        if (isFinishing()) return;
         if (authViewModel.isUserLoggedIn()) {
             // User is already logged in, go to main activity
             startActivity(new Intent(this, MainActivity.class));
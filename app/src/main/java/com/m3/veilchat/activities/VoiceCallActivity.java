@@ -39,7 +39,7 @@ public class VoiceCallActivity extends AppCompatActivity {
         binding = ActivityVoiceCallBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        securePrefsManager = new SecurePrefsManager(this);
+        securePrefsManager = SecurePrefsManager.getInstance(this);
 
         // Get call details
         String roomName = getIntent().getStringExtra("roomName");
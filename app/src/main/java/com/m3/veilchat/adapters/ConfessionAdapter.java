@@ -5,21 +5,64 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.m3.veilchat.R;
 import com.m3.veilchat.models.Confession;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
-public class ConfessionAdapter extends RecyclerView.Adapter<ConfessionAdapter.ConfessionViewHolder> {
-    private List<Confession> confessions = new ArrayList<>();
+public class ConfessionAdapter extends ListAdapter<Confession, ConfessionAdapter.ConfessionViewHolder> {
+    // Payload for an item whose only change is its like/reply counts
+    private static final Object PAYLOAD_COUNTS = new Object();
     private static final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
 
-    public void setConfessions(List<Confession> confessions) {
-        this.confessions = confessions != null ? confessions : new ArrayList<>();
-        notifyDataSetChanged();
+    private OnConfessionClickListener listener;
+    // Stable ids handed out per confession id, so they never collide the way string hashes can;
+    // ids of confessions that left the list are dropped, and never handed out again
+    private final Map<String, Long> itemIds = new HashMap<>();
+    private long nextItemId;
+
+    public interface OnConfessionClickListener {
+        void onConfessionClick(Confession confession);
+        void onReplyClick(Confession confession);
+        void onLikeClick(Confession confession);
+    }
+
+    public ConfessionAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    public void setOnConfessionClickListener(OnConfessionClickListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String confessionId = getItem(position).getConfessionId();
+        Long itemId = itemIds.get(confessionId);
+        if (itemId == null) {
+            itemId = nextItemId++;
+            itemIds.put(confessionId, itemId);
+        }
+        return itemId;
+    }
+
+    @Override
+    public void onCurrentListChanged(@NonNull List<Confession> previousList, @NonNull List<Confession> currentList) {
+        super.onCurrentListChanged(previousList, currentList);
+        Set<String> confessionIds = new HashSet<>();
+        for (Confession confession : currentList) {
+            confessionIds.add(confession.getConfessionId());
+        }
+        itemIds.keySet().retainAll(confessionIds);
     }
 
     @NonNull
@@ -27,36 +70,117 @@ public class ConfessionAdapter extends RecyclerView.Adapter<ConfessionAdapter.Co
     public ConfessionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_confession, parent, false);
-        return new ConfessionViewHolder(view);
+        ConfessionViewHolder holder = new ConfessionViewHolder(view);
+
+        // Listeners look the item up at click time, so rebinding never has to re-create them
+        holder.itemView.setOnClickListener(v -> {
+            Confession confession = itemAt(holder);
+            if (confession != null && listener != null) {
+                listener.onConfessionClick(confession);
+            }
+        });
+        holder.btnLike.setOnClickListener(v -> {
+            Confession confession = itemAt(holder);
+            if (confession != null && listener != null) {
+                listener.onLikeClick(confession);
+            }
+        });
+        holder.btnReply.setOnClickListener(v -> {
+            Confession confession = itemAt(holder);
+            if (confession != null && listener != null) {
+                listener.onReplyClick(confession);
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ConfessionViewHolder holder, int position) {
-        Confession confession = confessions.get(position);
-        holder.bind(confession);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return confessions.size();
+    public void onBindViewHolder(@NonNull ConfessionViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allCounts(payloads)) {
+            holder.bindCounts(getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    private static boolean allCounts(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_COUNTS) return false;
+        }
+        return true;
+    }
+
+    private Confession itemAt(ConfessionViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        return position != RecyclerView.NO_POSITION ? getItem(position) : null;
     }
 
     static class ConfessionViewHolder extends RecyclerView.ViewHolder {
-        private TextView tvConfessionText;
-        private TextView tvTimestamp;
-        private TextView tvMood;
+        private final TextView tvConfessionText;
+        private final TextView tvTimestamp;
+        private final TextView tvMood;
+        private final TextView tvLikeCount;
+        private final TextView tvReplyCount;
+        private final View btnLike;
+        private final View btnReply;
 
         public ConfessionViewHolder(@NonNull View itemView) {
             super(itemView);
             tvConfessionText = itemView.findViewById(R.id.tvContent);
             tvTimestamp = itemView.findViewById(R.id.tvTimestamp);
             tvMood = itemView.findViewById(R.id.tvMood);
+            tvLikeCount = itemView.findViewById(R.id.tvLikeCount);
+            tvReplyCount = itemView.findViewById(R.id.tvReplyCount);
+            btnLike = itemView.findViewById(R.id.btnLike);
+            btnReply = itemView.findViewById(R.id.btnReply);
         }
 
         public void bind(Confession confession) {
             tvConfessionText.setText(confession.getContent());
             tvTimestamp.setText(dateFormat.format(confession.getTimestamp()));
-            tvMood.setText("Feeling: " + confession.getMood());
+            tvMood.setText("Feeling: " + confession.getMoodTag());
+            bindCounts(confession);
+        }
+
+        public void bindCounts(Confession confession) {
+            tvLikeCount.setText(String.valueOf(confession.getLikeCount()));
+            tvReplyCount.setText(String.valueOf(confession.getReplyCount()));
         }
     }
+
+    private static final DiffUtil.ItemCallback<Confession> DIFF_CALLBACK = new DiffUtil.ItemCallback<Confession>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Confession oldItem, @NonNull Confession newItem) {
+            return oldItem.getConfessionId().equals(newItem.getConfessionId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Confession oldItem, @NonNull Confession newItem) {
+            return sameExceptCounts(oldItem, newItem)
+                    && oldItem.getLikeCount() == newItem.getLikeCount()
+                    && oldItem.getReplyCount() == newItem.getReplyCount();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Confession oldItem, @NonNull Confession newItem) {
+            return sameExceptCounts(oldItem, newItem) ? PAYLOAD_COUNTS : null;
+        }
+
+        private boolean sameExceptCounts(Confession oldItem, Confession newItem) {
+            return oldItem.getTimestamp() == newItem.getTimestamp()
+                    && oldItem.isAnonymous() == newItem.isAnonymous()
+                    && equal(oldItem.getContent(), newItem.getContent())
+                    && equal(oldItem.getMoodTag(), newItem.getMoodTag())
+                    && equal(oldItem.getConfessorDisplayName(), newItem.getConfessorDisplayName());
+        }
+
+        private boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    };
 }
@@ -1,30 +1,36 @@
 package com.m3.veilchat.adapters;
 
 import android.graphics.Color;
-import android.graphics.Typeface;
-import android.text.Spannable;
-import android.text.SpannableString;
-import android.text.style.ForegroundColorSpan;
-import android.text.style.StyleSpan;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.m3.veilchat.R;
+import com.m3.veilchat.managers.UsernameStyleCache;
 import com.m3.veilchat.models.Message;
-import com.m3.veilchat.utils.EncryptionUtils;
 import com.m3.veilchat.utils.SecurePrefsManager;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Random;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
-public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder> {
     private static final int TYPE_SYSTEM = 0;
     private static final int TYPE_SENT = 1;
     private static final int TYPE_RECEIVED = 2;
@@ -33,7 +39,11 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private static final int TYPE_CIPHER_SENT = 5;
     private static final int TYPE_CIPHER_RECEIVED = 6;
 
-    private List<Message> messages = new ArrayList<>();
+    // Payload for a rebind that only applies a sender style which has become ready
+    private static final Object PAYLOAD_SENDER_STYLE = new Object();
+    // Shown until the sender's own avatar is known; the same image the layouts start with
+    private static final int DEFAULT_AVATAR = R.drawable.avatar_1;
+
     private String currentUserId;
     private String currentRoomId;
     private SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
@@ -42,22 +52,67 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private OnMessageClickListener messageClickListener;
     private OnMessageLongClickListener messageLongClickListener;
 
-    // Daily username styling
-    private Random random = new Random();
-    private int[] usernameColors = {
-            Color.parseColor("#FF6B6B"), Color.parseColor("#4ECDC4"), Color.parseColor("#45B7D1"),
-            Color.parseColor("#96CEB4"), Color.parseColor("#FFEAA7"), Color.parseColor("#DDA0DD"),
-            Color.parseColor("#98D8C8"), Color.parseColor("#F7DC6F"), Color.parseColor("#BB8FCE")
+    // Daily username styling, prepared off the main thread ahead of binding
+    private final UsernameStyleCache styleCache;
+    // Messages bound before their sender's style was ready, to rebind once it is
+    private final Set<String> unstyledMessageIds = new HashSet<>();
+
+    // messageId -> position in the current list, rebuilt once per committed list
+    private final Map<String, Integer> positions = new HashMap<>();
+    // The list most recently handed to the differ. getCurrentList() lags behind it while a diff
+    // is running, and the differ keeps only the latest submission, so local edits start from this
+    private List<Message> lastSubmittedList = Collections.emptyList();
+
+    // Blink expiry: a min-heap of deadlines with a single timer armed for the earliest one
+    private static class BlinkExpiry {
+        final long expiresAt;
+        final String messageId;
+
+        BlinkExpiry(long expiresAt, String messageId) {
+            this.expiresAt = expiresAt;
+            this.messageId = messageId;
+        }
+    }
+
+    private final Handler blinkHandler = new Handler(Looper.getMainLooper());
+    private final PriorityQueue<BlinkExpiry> blinkExpiries =
+            new PriorityQueue<>(11, (a, b) -> Long.compare(a.expiresAt, b.expiresAt));
+    // Deadline each blink message is queued under, so a message is only queued once
+    private final Map<String, Long> scheduledBlinks = new HashMap<>();
+    private final Runnable blinkExpiryTask = this::expireBlinkMessages;
+    private long armedBlinkDeadline = Long.MAX_VALUE;
+
+    // Countdown labels of bound blink messages, all refreshed by one shared ticker
+    private final Map<TextView, Message> blinkTimers = new HashMap<>();
+    private boolean blinkTickerRunning;
+    private final Runnable blinkTicker = new Runnable() {
+        @Override
+        public void run() {
+            for (Map.Entry<TextView, Message> entry : blinkTimers.entrySet()) {
+                showBlinkTimer(entry.getValue(), entry.getKey());
+            }
+            blinkTickerRunning = !blinkTimers.isEmpty();
+            if (blinkTickerRunning) {
+                blinkHandler.postDelayed(this, 1000);
+            }
+        }
     };
-    private String[] usernameFonts = {"sans-serif", "sans-serif-medium", "sans-serif-light", "serif", "monospace"};
 
-    public MessageAdapter(String currentUserId, String currentRoomId, SecurePrefsManager securePrefsManager) {
+    public MessageAdapter(String currentUserId, String currentRoomId, SecurePrefsManager securePrefsManager,
+                          UsernameStyleCache styleCache) {
+        super(DIFF_CALLBACK);
         this.currentUserId = currentUserId;
         this.currentRoomId = currentRoomId;
         this.securePrefsManager = securePrefsManager;
+        this.styleCache = styleCache;
     }
 
     public void setMessages(List<Message> messages) {
+        submitList(messages);
+    }
+
+    @Override
+    public void submitList(@Nullable List<Message> messages) {
         // Filter out expired messages and system messages that are too old
         List<Message> validMessages = new ArrayList<>();
         long currentTime = System.currentTimeMillis();
@@ -78,48 +133,61 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             }
         }
 
-        this.messages = validMessages;
-        notifyDataSetChanged();
+        styleCache.prefetch(validMessages, this::onSenderStylesReady);
 
-        // Start blink message countdown if any blink messages exist
-        startBlinkMessageCleanup();
+        // The diff runs off the main thread and dispatches targeted insert/change/remove events;
+        // queue the blink messages' expiry once the new list is committed
+        submit(validMessages, this::scheduleBlinkExpiries);
+    }
+
+    private void submit(List<Message> messages, @Nullable Runnable commitCallback) {
+        lastSubmittedList = messages;
+        pruneBlinkExpiries(messages);
+        super.submitList(messages, commitCallback);
     }
 
     public void addMessage(Message message) {
         if (message != null && !message.hasExpired()) {
-            messages.add(message);
-            notifyItemInserted(messages.size() - 1);
+            styleCache.prefetch(Collections.singletonList(message), this::onSenderStylesReady);
+            List<Message> updated = new ArrayList<>(lastSubmittedList);
+            updated.add(message);
+            submit(updated, () -> {
+                if (message.isBlinkMessage()) {
+                    scheduleBlinkExpiries();
+                }
+            });
+        }
+    }
 
-            if (message.isBlinkMessage()) {
-                startBlinkMessageCleanup();
+    @Override
+    public void onCurrentListChanged(@NonNull List<Message> previousList, @NonNull List<Message> currentList) {
+        super.onCurrentListChanged(previousList, currentList);
+        positions.clear();
+        for (int i = 0; i < currentList.size(); i++) {
+            String messageId = currentList.get(i).getMessageId();
+            if (messageId != null) {
+                positions.put(messageId, i);
             }
         }
     }
 
     public void updateMessageReadStatus(String messageId, boolean isRead) {
-        for (int i = 0; i < messages.size(); i++) {
-            Message message = messages.get(i);
-            if (message.getMessageId().equals(messageId)) {
-                message.setRead(isRead);
-                notifyItemChanged(i);
-                break;
-            }
+        Integer position = positions.get(messageId);
+        if (position == null) return;
+        Message message = getItem(position);
+        if (message.isRead() != isRead) {
+            message.setRead(isRead);
+            notifyItemChanged(position);
         }
     }
 
     public void deleteMessage(String messageId) {
-        for (int i = 0; i < messages.size(); i++) {
-            if (messages.get(i).getMessageId().equals(messageId)) {
-                messages.remove(i);
-                notifyItemRemoved(i);
-                break;
-            }
-        }
+        removeMessages(Collections.singleton(messageId));
     }
 
     @Override
     public int getItemViewType(int position) {
-        Message message = messages.get(position);
+        Message message = getItem(position);
 
         if (message.isSystemMessage()) {
             return TYPE_SYSTEM;
@@ -179,7 +247,7 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        Message message = messages.get(position);
+        Message message = getItem(position);
 
         switch (holder.getItemViewType()) {
             case TYPE_SYSTEM:
@@ -227,28 +295,134 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     }
 
     @Override
-    public int getItemCount() {
-        return messages.size();
-    }
-
-    private void startBlinkMessageCleanup() {
-        // Check for blink messages and schedule their removal
-        for (int i = 0; i < messages.size(); i++) {
-            Message message = messages.get(i);
-            if (message.isBlinkMessage() && message.getExpiresAt() > 0) {
-                long remainingTime = message.getExpiresAt() - System.currentTimeMillis();
-                if (remainingTime > 0) {
-                    scheduleMessageRemoval(message.getMessageId(), remainingTime);
-                }
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allSenderStyle(payloads)) {
+            bindSenderOnly(holder, getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    private static boolean allSenderStyle(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SENDER_STYLE) return false;
+        }
+        return true;
+    }
+
+    private void bindSenderOnly(RecyclerView.ViewHolder holder, Message message) {
+        if (holder instanceof ReceivedMessageViewHolder) {
+            ReceivedMessageViewHolder received = (ReceivedMessageViewHolder) holder;
+            bindSender(message, received.tvSenderName, received.ivSenderAvatar);
+        } else if (holder instanceof BlinkReceivedMessageViewHolder) {
+            BlinkReceivedMessageViewHolder received = (BlinkReceivedMessageViewHolder) holder;
+            bindSender(message, received.tvSenderName, received.ivSenderAvatar);
+        } else if (holder instanceof CipherReceivedMessageViewHolder) {
+            CipherReceivedMessageViewHolder received = (CipherReceivedMessageViewHolder) holder;
+            bindSender(message, received.tvSenderName, received.ivSenderAvatar);
+        }
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewRecycled(holder);
+        if (holder instanceof BlinkSentMessageViewHolder) {
+            blinkTimers.remove(((BlinkSentMessageViewHolder) holder).tvBlinkTimer);
+        } else if (holder instanceof BlinkReceivedMessageViewHolder) {
+            blinkTimers.remove(((BlinkReceivedMessageViewHolder) holder).tvBlinkTimer);
+        }
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        armBlinkExpiry();
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        blinkHandler.removeCallbacksAndMessages(null);
+        armedBlinkDeadline = Long.MAX_VALUE;
+        blinkTickerRunning = false;
+        blinkTimers.clear();
+    }
+
+    // Queue every blink message in the committed list that isn't queued under its deadline yet
+    private void scheduleBlinkExpiries() {
+        for (Message message : getCurrentList()) {
+            if (!message.isBlinkMessage() || message.getExpiresAt() <= 0 || message.getMessageId() == null) {
+                continue;
+            }
+            Long scheduled = scheduledBlinks.get(message.getMessageId());
+            if (scheduled == null || scheduled != message.getExpiresAt()) {
+                scheduledBlinks.put(message.getMessageId(), message.getExpiresAt());
+                blinkExpiries.add(new BlinkExpiry(message.getExpiresAt(), message.getMessageId()));
             }
         }
+        armBlinkExpiry();
+    }
+
+    // Forget deadlines of messages that are no longer in the list, and superseded ones
+    private void pruneBlinkExpiries(List<Message> messages) {
+        if (scheduledBlinks.isEmpty()) return;
+        Set<String> messageIds = new HashSet<>();
+        for (Message message : messages) {
+            messageIds.add(message.getMessageId());
+        }
+        scheduledBlinks.keySet().retainAll(messageIds);
+        blinkExpiries.removeIf(expiry -> {
+            Long scheduled = scheduledBlinks.get(expiry.messageId);
+            return scheduled == null || scheduled != expiry.expiresAt;
+        });
+        armBlinkExpiry();
     }
 
-    private void scheduleMessageRemoval(String messageId, long delay) {
-        android.os.Handler handler = new android.os.Handler();
-        handler.postDelayed(() -> {
-            deleteMessage(messageId);
-        }, delay);
+    // Keep exactly one callback pending, for the earliest deadline in the heap
+    private void armBlinkExpiry() {
+        BlinkExpiry next = blinkExpiries.peek();
+        long deadline = next != null ? next.expiresAt : Long.MAX_VALUE;
+        if (deadline == armedBlinkDeadline) return;
+
+        blinkHandler.removeCallbacks(blinkExpiryTask);
+        armedBlinkDeadline = deadline;
+        if (next != null) {
+            long delay = Math.max(0, deadline - System.currentTimeMillis());
+            blinkHandler.postAtTime(blinkExpiryTask, SystemClock.uptimeMillis() + delay);
+        }
+    }
+
+    private void expireBlinkMessages() {
+        armedBlinkDeadline = Long.MAX_VALUE;
+        long now = System.currentTimeMillis();
+        Set<String> expired = new HashSet<>();
+        while (!blinkExpiries.isEmpty() && blinkExpiries.peek().expiresAt <= now) {
+            BlinkExpiry expiry = blinkExpiries.poll();
+            // Entries superseded by a newer deadline for the same message are skipped
+            Long scheduled = scheduledBlinks.get(expiry.messageId);
+            if (scheduled != null && scheduled == expiry.expiresAt) {
+                scheduledBlinks.remove(expiry.messageId);
+                expired.add(expiry.messageId);
+            }
+        }
+        if (!expired.isEmpty()) {
+            removeMessages(expired);
+        }
+        armBlinkExpiry();
+    }
+
+    // Drop the given messages in one commit; the diff dispatches a targeted removal for each
+    private void removeMessages(Set<String> messageIds) {
+        List<Message> messages = lastSubmittedList;
+        List<Message> updated = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            if (!messageIds.contains(message.getMessageId())) {
+                updated.add(message);
+            }
+        }
+        if (updated.size() != messages.size()) {
+            submit(updated, null);
+        }
     }
 
     // ViewHolder Classes
@@ -287,8 +461,12 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             tvMessageContent.setText(message.getContent());
             tvMessageTime.setText(timeFormat.format(new Date(message.getTimestamp())));
 
-            // Message status (read/delivered/sent)
-            if (message.isRead()) {
+            // Message status (sending/read/sent)
+            if (message.isPending()) {
+                tvMessageStatus.setText("Sending");
+                tvMessageStatus.setTextColor(Color.parseColor("#BDBDBD"));
+                messageStatusIndicator.setBackgroundColor(Color.parseColor("#BDBDBD"));
+            } else if (message.isRead()) {
                 tvMessageStatus.setText("Read");
                 tvMessageStatus.setTextColor(Color.parseColor("#4CAF50"));
                 messageStatusIndicator.setBackgroundColor(Color.parseColor("#4CAF50"));
@@ -316,50 +494,9 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
         public void bind(Message message) {
             // Apply daily username styling
-            String displayName = message.getSenderDisplayName() != null ?
-                    message.getSenderDisplayName() : "Anonymous";
-
-            SpannableString styledName = new SpannableString(displayName);
-            int color = getDailyUsernameColor(message.getSenderId());
-            String fontFamily = getDailyUsernameFont(message.getSenderId());
-
-            styledName.setSpan(new ForegroundColorSpan(color), 0, displayName.length(),
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            styledName.setSpan(new StyleSpan(Typeface.BOLD), 0, displayName.length(),
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-
-            tvSenderName.setText(styledName);
-            // Note: For font family, you'd need a custom TextView or use Calligraphy in production
-
+            bindSender(message, tvSenderName, ivSenderAvatar);
             tvMessageContent.setText(message.getContent());
             tvMessageTime.setText(timeFormat.format(new Date(message.getTimestamp())));
-
-            // Set avatar based on persona or mood
-            setAvatarForPersona(ivSenderAvatar, message.getSenderPersonaId(), message.getSenderDisplayName());
-        }
-
-        private void setAvatarForPersona(ImageView imageView, String personaId, String displayName) {
-            // Generate consistent avatar based on persona ID or name
-            if (personaId != null && !personaId.isEmpty()) {
-                int avatarResId = getAvatarResource(personaId);
-                imageView.setImageResource(avatarResId);
-            } else if (displayName != null) {
-                int avatarResId = getAvatarResource(displayName);
-                imageView.setImageResource(avatarResId);
-            }
-        }
-
-        private int getAvatarResource(String seed) {
-            // Generate consistent avatar based on seed string
-            int hash = seed.hashCode();
-            int index = Math.abs(hash) % 8; // 8 different avatars
-
-            int[] avatarResources = {
-                    R.drawable.avatar_1, R.drawable.avatar_2, R.drawable.avatar_3, R.drawable.avatar_4,
-                    R.drawable.avatar_5, R.drawable.avatar_6, R.drawable.avatar_7, R.drawable.avatar_8
-            };
-
-            return avatarResources[index];
         }
     }
 
@@ -386,7 +523,7 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             blinkIndicator.setVisibility(View.VISIBLE);
 
             // Update blink timer
-            updateBlinkTimer(message, tvBlinkTimer);
+            bindBlinkTimer(message, tvBlinkTimer);
         }
     }
 
@@ -410,18 +547,7 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
         public void bind(Message message) {
             // Apply daily username styling
-            String displayName = message.getSenderDisplayName() != null ?
-                    message.getSenderDisplayName() : "Anonymous";
-
-            SpannableString styledName = new SpannableString(displayName);
-            int color = getDailyUsernameColor(message.getSenderId());
-
-            styledName.setSpan(new ForegroundColorSpan(color), 0, displayName.length(),
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            styledName.setSpan(new StyleSpan(Typeface.BOLD), 0, displayName.length(),
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-
-            tvSenderName.setText(styledName);
+            bindSender(message, tvSenderName, ivSenderAvatar);
             tvMessageContent.setText(message.getContent());
             tvMessageTime.setText(timeFormat.format(new Date(message.getTimestamp())));
 
@@ -430,10 +556,7 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             blinkIndicator.setVisibility(View.VISIBLE);
 
             // Update blink timer
-            updateBlinkTimer(message, tvBlinkTimer);
-
-            // Set avatar
-            setAvatarForPersona(ivSenderAvatar, message.getSenderPersonaId(), message.getSenderDisplayName());
+            bindBlinkTimer(message, tvBlinkTimer);
         }
     }
 
@@ -488,32 +611,15 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
         public void bind(Message message) {
             // Apply daily username styling
-            String displayName = message.getSenderDisplayName() != null ?
-                    message.getSenderDisplayName() : "Anonymous";
-
-            SpannableString styledName = new SpannableString(displayName);
-            int color = getDailyUsernameColor(message.getSenderId());
+            bindSender(message, tvSenderName, ivSenderAvatar);
 
-            styledName.setSpan(new ForegroundColorSpan(color), 0, displayName.length(),
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            styledName.setSpan(new StyleSpan(Typeface.BOLD), 0, displayName.length(),
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-
-            tvSenderName.setText(styledName);
-
-            // For received cipher messages, show emoji representation or "Encrypted Message"
+            // Content was already decrypted off the main thread by MessageDecryptor when the key is known;
+            // otherwise show "Encrypted Message"
             String cipherKey = securePrefsManager.getCipherKey(currentRoomId);
             if (cipherKey != null) {
-                try {
-                    String decryptedContent = EncryptionUtils.decryptWithEmojiCipher(message.getContent(), cipherKey);
-                    tvMessageContent.setText(decryptedContent);
-                    tvCipherLabel.setText("Decrypted");
-                    ivCipherLock.setImageResource(R.drawable.ic_lock_open);
-                } catch (Exception e) {
-                    tvMessageContent.setText("🔒 Encrypted Message");
-                    tvCipherLabel.setText("Cipher - Tap to Decrypt");
-                    ivCipherLock.setImageResource(R.drawable.ic_lock);
-                }
+                tvMessageContent.setText(message.getContent());
+                tvCipherLabel.setText("Decrypted");
+                ivCipherLock.setImageResource(R.drawable.ic_lock_open);
             } else {
                 tvMessageContent.setText("🔒 Encrypted Message");
                 tvCipherLabel.setText("Cipher - Key Required");
@@ -529,9 +635,6 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             tvCipherLabel.setVisibility(View.VISIBLE);
             ivCipherLock.setVisibility(View.VISIBLE);
 
-            // Set avatar
-            setAvatarForPersona(ivSenderAvatar, message.getSenderPersonaId(), message.getSenderDisplayName());
-
             // Set decrypt button listener
             btnDecrypt.setOnClickListener(v -> {
                 if (messageClickListener != null) {
@@ -543,17 +646,22 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
     // Helper Methods
 
-    private void updateBlinkTimer(Message message, TextView timerView) {
+    private void bindBlinkTimer(Message message, TextView timerView) {
+        blinkTimers.put(timerView, message);
+        showBlinkTimer(message, timerView);
+        if (!blinkTickerRunning) {
+            blinkTickerRunning = true;
+            blinkHandler.postDelayed(blinkTicker, 1000);
+        }
+    }
+
+    private void showBlinkTimer(Message message, TextView timerView) {
         if (message.isBlinkMessage() && message.getExpiresAt() > 0) {
             long remainingTime = message.getExpiresAt() - System.currentTimeMillis();
             if (remainingTime > 0) {
                 int seconds = (int) (remainingTime / 1000);
                 timerView.setText(seconds + "s");
                 timerView.setVisibility(View.VISIBLE);
-
-                // Schedule next update
-                android.os.Handler handler = new android.os.Handler();
-                handler.postDelayed(() -> updateBlinkTimer(message, timerView), 1000);
             } else {
                 timerView.setVisibility(View.GONE);
             }
@@ -562,39 +670,32 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
     }
 
-    private int getDailyUsernameColor(String userId) {
-        // Generate consistent but daily-changing color based on user ID and current date
-        long daySeed = System.currentTimeMillis() / (24 * 60 * 60 * 1000); // Change daily
-        int hash = (userId + daySeed).hashCode();
-        int index = Math.abs(hash) % usernameColors.length;
-        return usernameColors[index];
-    }
-
-    private String getDailyUsernameFont(String userId) {
-        // Generate consistent but daily-changing font based on user ID and current date
-        long daySeed = System.currentTimeMillis() / (24 * 60 * 60 * 1000); // Change daily
-        int hash = (userId + daySeed).hashCode();
-        int index = Math.abs(hash) % usernameFonts.length;
-        return usernameFonts[index];
-    }
-
-    private void setAvatarForPersona(ImageView imageView, String personaId, String displayName) {
-        // Generate consistent avatar based on persona ID or name
-        String seed = personaId != null ? personaId : (displayName != null ? displayName : "anonymous");
-        int avatarResId = getAvatarResource(seed);
-        imageView.setImageResource(avatarResId);
+    // Styled name and avatar from the shared cache; plain name and default avatar until it's ready
+    private void bindSender(Message message, TextView nameView, ImageView avatarView) {
+        UsernameStyleCache.SenderStyle style = styleCache.peek(message);
+        if (style != null) {
+            nameView.setText(style.getStyledName());
+            avatarView.setImageResource(style.getAvatarResId());
+        } else {
+            if (message.getMessageId() != null) {
+                unstyledMessageIds.add(message.getMessageId());
+            }
+            nameView.setText(message.getSenderDisplayName() != null ? message.getSenderDisplayName() : "Anonymous");
+            avatarView.setImageResource(DEFAULT_AVATAR);
+        }
     }
 
-    private int getAvatarResource(String seed) {
-        int hash = seed.hashCode();
-        int index = Math.abs(hash) % 8;
-
-        int[] avatarResources = {
-                R.drawable.avatar_1, R.drawable.avatar_2, R.drawable.avatar_3, R.drawable.avatar_4,
-                R.drawable.avatar_5, R.drawable.avatar_6, R.drawable.avatar_7, R.drawable.avatar_8
-        };
-
-        return avatarResources[index];
+    // Rebind just the sender of the messages that were shown unstyled
+    private void onSenderStylesReady() {
+        if (unstyledMessageIds.isEmpty()) return;
+        List<String> messageIds = new ArrayList<>(unstyledMessageIds);
+        unstyledMessageIds.clear();
+        for (String messageId : messageIds) {
+            Integer position = positions.get(messageId);
+            if (position != null) {
+                notifyItemChanged(position, PAYLOAD_SENDER_STYLE);
+            }
+        }
     }
 
     // Interface for message click events
@@ -621,23 +722,35 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     }
 
     public void refreshMessageStyles() {
-        // Force refresh to update daily username styles
-        notifyDataSetChanged();
+        // Rebuild the daily username styles, then rebind with them
+        styleCache.prefetch(getCurrentList(), () -> notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SENDER_STYLE));
     }
 
     public List<Message> getMessages() {
-        return new ArrayList<>(messages);
+        return new ArrayList<>(getCurrentList());
     }
 
     public void clearMessages() {
-        messages.clear();
-        notifyDataSetChanged();
+        submit(Collections.<Message>emptyList(), null);
     }
 
     public Message getMessageAt(int position) {
-        if (position >= 0 && position < messages.size()) {
-            return messages.get(position);
+        if (position >= 0 && position < getItemCount()) {
+            return getItem(position);
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private static final DiffUtil.ItemCallback<Message> DIFF_CALLBACK = new DiffUtil.ItemCallback<Message>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+            return oldItem.getMessageId() != null && oldItem.getMessageId().equals(newItem.getMessageId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+            // ChatRepository only creates a new Message instance when its document changed
+            return oldItem.equals(newItem);
+        }
+    };
+}
@@ -19,10 +19,12 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.m3.veilchat.R;
 import com.m3.veilchat.adapters.MessageAdapter;
 import com.m3.veilchat.databinding.FragmentChatRoomBinding;
+import com.m3.veilchat.managers.UsernameStyleCache;
 import com.m3.veilchat.models.Persona;
 import com.m3.veilchat.models.User;
 import com.m3.veilchat.utils.EncryptionUtils;
@@ -33,10 +35,14 @@ import com.m3.veilchat.viewmodels.UserViewModel;
 import java.util.List;
 
 public class ChatRoomFragment extends Fragment {
+    // Start fetching the previous page when this many items remain above the viewport
+    private static final int OLDER_MESSAGES_PREFETCH = 10;
+
     private FragmentChatRoomBinding binding;
     private ChatViewModel chatViewModel;
     private UserViewModel userViewModel;
     private MessageAdapter messageAdapter;
+    private LinearLayoutManager messagesLayoutManager;
     private String roomId;
     private String roomName;
     private String currentRule = "normal";
@@ -56,7 +62,7 @@ public class ChatRoomFragment extends Fragment {
 
         chatViewModel = new ViewModelProvider(requireActivity()).get(ChatViewModel.class);
         userViewModel = new ViewModelProvider(requireActivity()).get(UserViewModel.class);
-        securePrefsManager = new SecurePrefsManager(requireContext());
+        securePrefsManager = SecurePrefsManager.getInstance(requireContext());
 
         if (getArguments() != null) {
             roomId = getArguments().getString("roomId");
@@ -69,9 +75,14 @@ public class ChatRoomFragment extends Fragment {
         setupObservers();
         setupClickListeners();
         setupMessageRules();
+    }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        // Also restarts the room's listener after an app lock dropped it; a no-op while it runs
         if (roomId != null) {
-            chatViewModel.loadRoomMessages(roomId);
+            chatViewModel.loadRoomMessages(getViewLifecycleOwner(), roomId);
         }
     }
 
@@ -235,16 +246,34 @@ public class ChatRoomFragment extends Fragment {
     private void setupRecyclerView() {
         User currentUser = userViewModel.getCurrentUser().getValue();
         String currentUserId = (currentUser != null) ? currentUser.getUserId() : "";
-        messageAdapter = new MessageAdapter(currentUserId);
-        binding.rvMessages.setLayoutManager(new LinearLayoutManager(getContext()));
+        messageAdapter = new MessageAdapter(currentUserId, roomId, securePrefsManager,
+                UsernameStyleCache.getInstance(requireContext()));
+        messagesLayoutManager = new LinearLayoutManager(getContext());
+        binding.rvMessages.setLayoutManager(messagesLayoutManager);
         binding.rvMessages.setAdapter(messageAdapter);
+
+        binding.rvMessages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Page backwards through history as the user scrolls up
+                if (dy < 0 && messagesLayoutManager.findFirstVisibleItemPosition() <= OLDER_MESSAGES_PREFETCH) {
+                    chatViewModel.loadOlderMessages();
+                }
+            }
+        });
     }
 
     private void setupObservers() {
         chatViewModel.getRoomMessages().observe(getViewLifecycleOwner(), messages -> {
             if (messages != null) {
+                // Only follow new messages when the user is already at the bottom, not while reading history
+                int lastVisible = messagesLayoutManager.findLastVisibleItemPosition();
+                boolean atBottom = lastVisible == RecyclerView.NO_POSITION
+                        || lastVisible >= messageAdapter.getItemCount() - 2;
                 messageAdapter.submitList(messages);
-                binding.rvMessages.scrollToPosition(messages.size() - 1);
+                if (atBottom) {
+                    binding.rvMessages.scrollToPosition(messages.size() - 1);
+                }
             }
             binding.tvNoMessages.setVisibility(messages == null || messages.isEmpty() ? View.VISIBLE : View.GONE);
         });
@@ -313,6 +342,9 @@ public class ChatRoomFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (roomId != null) {
+            chatViewModel.exitRoom(roomId);
+        }
         binding = null;
     }
 }
@@ -41,7 +41,7 @@ public class ChatsFragment extends Fragment {
         setupObservers();
         setupClickListeners();
 
-        chatViewModel.loadUserRooms();
+        chatViewModel.loadUserRooms(getViewLifecycleOwner());
     }
 
     private void setupRecyclerView() {
@@ -4,41 +4,70 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.google.android.material.tabs.TabLayout;
 import com.m3.veilchat.adapters.ConfessionAdapter;
 import com.m3.veilchat.databinding.FragmentConfessionBoardBinding;
 import com.m3.veilchat.models.Confession;
 import com.m3.veilchat.viewmodels.ConfessionViewModel;
+import java.util.List;
 
 public class ConfessionBoardFragment extends Fragment {
+    private static final int OLDER_CONFESSIONS_PREFETCH = 5;
+    private static final int TAB_TRENDING = 1;
+
     private FragmentConfessionBoardBinding binding;
     private ConfessionViewModel confessionViewModel;
     private ConfessionAdapter confessionAdapter;
+    private LinearLayoutManager confessionsLayoutManager;
+    private boolean showingTrending;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
         binding = FragmentConfessionBoardBinding.inflate(inflater, container, false);
+        return binding.getRoot();
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
         confessionViewModel = new ViewModelProvider(this).get(ConfessionViewModel.class);
 
         setupRecyclerView();
+        setupTabs();
         setupObservers();
         setupClickListeners();
 
-        // Load confessions
-        confessionViewModel.loadConfessions();
-
-        return binding.getRoot();
+        // Load the newest page once per ViewModel; older pages are fetched while scrolling
+        if (confessionViewModel.getConfessions().getValue() == null) {
+            confessionViewModel.loadConfessions();
+        }
     }
 
     private void setupRecyclerView() {
         confessionAdapter = new ConfessionAdapter();
-        binding.rvConfessions.setLayoutManager(new LinearLayoutManager(getContext()));
+        confessionsLayoutManager = new LinearLayoutManager(getContext());
+        binding.rvConfessions.setLayoutManager(confessionsLayoutManager);
         binding.rvConfessions.setAdapter(confessionAdapter);
 
+        binding.rvConfessions.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Fetch the next page before the user reaches the bottom of the board
+                if (!showingTrending && dy > 0 && confessionsLayoutManager.findLastVisibleItemPosition()
+                        >= confessionAdapter.getItemCount() - OLDER_CONFESSIONS_PREFETCH) {
+                    confessionViewModel.loadOlderConfessions();
+                }
+            }
+        });
+
         confessionAdapter.setOnConfessionClickListener(new ConfessionAdapter.OnConfessionClickListener() {
             @Override
             public void onConfessionClick(Confession confession) {
@@ -57,16 +86,35 @@ public class ConfessionBoardFragment extends Fragment {
         });
     }
 
+    private void setupTabs() {
+        binding.tabsConfessionFeed.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                showingTrending = tab.getPosition() == TAB_TRENDING;
+                // Trending is only listened to once the tab has been opened
+                if (showingTrending && confessionViewModel.getTrendingConfessions().getValue() == null) {
+                    confessionViewModel.loadTrendingConfessions();
+                }
+                showConfessions();
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {
+            }
+
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {
+                binding.rvConfessions.scrollToPosition(0);
+            }
+        });
+    }
+
     private void setupObservers() {
         confessionViewModel.getConfessions().observe(getViewLifecycleOwner(), confessions -> {
-            if (confessions != null && !confessions.isEmpty()) {
-                binding.tvNoConfessions.setVisibility(View.GONE);
-                binding.rvConfessions.setVisibility(View.VISIBLE);
-                confessionAdapter.setConfessions(confessions);
-            } else {
-                binding.tvNoConfessions.setVisibility(View.VISIBLE);
-                binding.rvConfessions.setVisibility(View.GONE);
-            }
+            if (!showingTrending) showConfessions();
+        });
+        confessionViewModel.getTrendingConfessions().observe(getViewLifecycleOwner(), confessions -> {
+            if (showingTrending) showConfessions();
         });
 
         confessionViewModel.getErrorMessage().observe(getViewLifecycleOwner(), errorMessage -> {
@@ -79,6 +127,21 @@ public class ConfessionBoardFragment extends Fragment {
         });
     }
 
+    private void showConfessions() {
+        List<Confession> confessions = showingTrending
+                ? confessionViewModel.getTrendingConfessions().getValue()
+                : confessionViewModel.getConfessions().getValue();
+        if (confessions != null && !confessions.isEmpty()) {
+            binding.tvNoConfessions.setVisibility(View.GONE);
+            binding.rvConfessions.setVisibility(View.VISIBLE);
+            confessionAdapter.submitList(confessions);
+        } else {
+            binding.tvNoConfessions.setVisibility(View.VISIBLE);
+            binding.rvConfessions.setVisibility(View.GONE);
+            confessionAdapter.submitList(null);
+        }
+    }
+
     private void setupClickListeners() {
         binding.fabAddConfession.setOnClickListener(v -> {
             showAddConfessionDialog();
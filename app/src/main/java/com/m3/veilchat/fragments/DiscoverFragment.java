@@ -1,29 +1,46 @@
 package com.m3.veilchat.fragments;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.m3.veilchat.R;
 import com.m3.veilchat.adapters.ChatRoomAdapter;
 import com.m3.veilchat.databinding.FragmentDiscoverBinding;
 import com.m3.veilchat.models.ChatRoom;
+import com.m3.veilchat.utils.RoomSearchEngine;
 import com.m3.veilchat.viewmodels.ChatViewModel;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class DiscoverFragment extends Fragment {
+    private static final int ROOMS_PREFETCH = 10;
+    private static final long LOCAL_SEARCH_DEBOUNCE_MS = 150;
+    private static final long SERVER_SEARCH_DEBOUNCE_MS = 500;
+
     private FragmentDiscoverBinding binding;
     private ChatViewModel chatViewModel;
     private ChatRoomAdapter chatRoomAdapter;
+    private LinearLayoutManager roomsLayoutManager;
+    private ScheduledExecutorService searchExecutor;
+    private RoomSearchEngine searchEngine;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable serverSearch = this::applyFilters;
 
     @Nullable
     @Override
@@ -40,10 +57,11 @@ public class DiscoverFragment extends Fragment {
 
         setupFilterSpinners();
         setupRecyclerView();
+        setupSearch();
         setupObservers();
         setupClickListeners();
 
-        chatViewModel.loadPublicRooms();
+        applyFilters();
     }
 
     private void setupFilterSpinners() {
@@ -60,19 +78,61 @@ public class DiscoverFragment extends Fragment {
 
     private void setupRecyclerView() {
         chatRoomAdapter = new ChatRoomAdapter();
-        binding.rvRooms.setLayoutManager(new LinearLayoutManager(getContext()));
+        roomsLayoutManager = new LinearLayoutManager(getContext());
+        binding.rvRooms.setLayoutManager(roomsLayoutManager);
         binding.rvRooms.setAdapter(chatRoomAdapter);
 
+        binding.rvRooms.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Fetch the next page before the user reaches the end of the list
+                if (dy > 0 && roomsLayoutManager.findLastVisibleItemPosition()
+                        >= chatRoomAdapter.getItemCount() - ROOMS_PREFETCH) {
+                    chatViewModel.loadMoreDiscoverRooms();
+                }
+            }
+        });
+
         chatRoomAdapter.setOnChatRoomClickListener(chatRoom -> {
             chatViewModel.joinRoom(chatRoom.getRoomId());
             navigateToChatRoom(chatRoom);
         });
     }
 
+    // Typing narrows the loaded rooms on a background thread right away, then refreshes from Firestore
+    private void setupSearch() {
+        searchExecutor = Executors.newSingleThreadScheduledExecutor();
+        searchEngine = new RoomSearchEngine(searchExecutor, ContextCompat.getMainExecutor(requireContext()),
+                LOCAL_SEARCH_DEBOUNCE_MS, this::showRooms);
+
+        binding.etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchEngine.setQuery(s.toString());
+                searchHandler.removeCallbacks(serverSearch);
+                searchHandler.postDelayed(serverSearch, SERVER_SEARCH_DEBOUNCE_MS);
+            }
+        });
+    }
+
+    private void showRooms(List<ChatRoom> rooms) {
+        if (binding == null) return;
+        chatRoomAdapter.submitList(rooms);
+
+        binding.tvNoRooms.setVisibility(rooms.isEmpty() ? View.VISIBLE : View.GONE);
+        binding.rvRooms.setVisibility(rooms.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
     private void setupObservers() {
-        chatViewModel.getPublicRooms().observe(getViewLifecycleOwner(), chatRooms -> {
+        chatViewModel.getDiscoverRooms().observe(getViewLifecycleOwner(), chatRooms -> {
             if (chatRooms != null) {
-                applyFilters(chatRooms);
+                searchEngine.setRooms(chatRooms);
             }
         });
 
@@ -87,50 +147,26 @@ public class DiscoverFragment extends Fragment {
     }
 
     private void setupClickListeners() {
-        binding.btnApplyFilters.setOnClickListener(v -> {
-            List<ChatRoom> currentRooms = chatViewModel.getPublicRooms().getValue();
-            if (currentRooms != null) {
-                applyFilters(currentRooms);
-            }
-        });
+        binding.btnApplyFilters.setOnClickListener(v -> applyFilters());
 
         binding.fabCreateRoom.setOnClickListener(v -> showCreateRoomDialog());
 
         binding.etSearch.setOnEditorActionListener((v, actionId, event) -> {
-            List<ChatRoom> currentRooms = chatViewModel.getPublicRooms().getValue();
-            if (currentRooms != null) {
-                applyFilters(currentRooms);
-            }
+            searchHandler.removeCallbacks(serverSearch);
+            applyFilters();
             return true;
         });
     }
 
-    private void applyFilters(List<ChatRoom> allRooms) {
+    // Filters run in the Firestore query; the first item of each spinner means "any"
+    private void applyFilters() {
         String searchQuery = binding.etSearch.getText().toString().trim();
-        String selectedMood = binding.spinnerMood.getSelectedItem().toString();
-        String selectedInterest = binding.spinnerInterest.getSelectedItem().toString();
-
-        List<ChatRoom> filteredRooms = new ArrayList<>();
-        for (ChatRoom room : allRooms) {
-            boolean matchesSearch = searchQuery.isEmpty() ||
-                    room.getName().toLowerCase().contains(searchQuery.toLowerCase()) ||
-                    room.getDescription().toLowerCase().contains(searchQuery.toLowerCase());
-
-            boolean matchesMood = selectedMood.equals("All Moods") ||
-                    (room.getMoodTag() != null && room.getMoodTag().equals(selectedMood));
-
-            boolean matchesInterest = selectedInterest.equals("All Interests") ||
-                    (room.getInterestTag() != null && room.getInterestTag().equals(selectedInterest));
-
-            if (matchesSearch && matchesMood && matchesInterest) {
-                filteredRooms.add(room);
-            }
-        }
-
-        chatRoomAdapter.submitList(filteredRooms);
+        String selectedMood = binding.spinnerMood.getSelectedItemPosition() > 0
+                ? binding.spinnerMood.getSelectedItem().toString() : null;
+        String selectedInterest = binding.spinnerInterest.getSelectedItemPosition() > 0
+                ? binding.spinnerInterest.getSelectedItem().toString() : null;
 
-        binding.tvNoRooms.setVisibility(filteredRooms.isEmpty() ? View.VISIBLE : View.GONE);
-        binding.rvRooms.setVisibility(filteredRooms.isEmpty() ? View.GONE : View.VISIBLE);
+        chatViewModel.discoverRooms(searchQuery, selectedMood, selectedInterest);
     }
 
     private void showCreateRoomDialog() {
@@ -152,6 +188,8 @@ public class DiscoverFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        searchHandler.removeCallbacks(serverSearch);
+        searchExecutor.shutdownNow();
         binding = null;
     }
 }
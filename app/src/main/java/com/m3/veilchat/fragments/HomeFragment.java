@@ -46,7 +46,7 @@ public class HomeFragment extends Fragment {
         setupObservers();
         setupClickListeners();
 
-        chatViewModel.loadUserRooms();
+        chatViewModel.loadUserRooms(getViewLifecycleOwner());
     }
 
     private void setupRecyclerView() {
@@ -47,7 +47,7 @@ public class SecretInboxFragment extends Fragment {
 
         secretInboxViewModel = new ViewModelProvider(this).get(SecretInboxViewModel.class);
         userViewModel = new ViewModelProvider(requireActivity()).get(UserViewModel.class);
-        securePrefsManager = new SecurePrefsManager(requireContext());
+        securePrefsManager = SecurePrefsManager.getInstance(requireContext());
 
         setupGestureDetector();
         checkLockStatus();
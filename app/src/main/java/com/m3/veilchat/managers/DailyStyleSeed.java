@@ -0,0 +1,32 @@
+package com.m3.veilchat.managers;
+
+import android.util.Log;
+import java.security.MessageDigest;
+
+// Seed for a user's username style, stable for one calendar day
+public final class DailyStyleSeed {
+    private static final String TAG = "DailyStyleSeed";
+
+    private DailyStyleSeed() {}
+
+    public static long forUser(String userId, String dateString) {
+        try {
+            // Combine user ID with current date to get daily-changing seed
+            String seedString = userId + dateString;
+
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(seedString.getBytes());
+
+            // Convert first 8 bytes to long
+            long seed = 0;
+            for (int i = 0; i < 8; i++) {
+                seed = (seed << 8) | (hash[i] & 0xFF);
+            }
+
+            return seed;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to generate daily seed", e);
+            return System.currentTimeMillis() / (24 * 60 * 60 * 1000); // Fallback: daily changing
+        }
+    }
+}
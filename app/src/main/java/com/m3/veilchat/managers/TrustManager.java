@@ -14,7 +14,7 @@ public class TrustManager {
 
     public TrustManager(Context context) {
         firestore = FirebaseFirestore.getInstance();
-        securePrefsManager = new SecurePrefsManager(context);
+        securePrefsManager = SecurePrefsManager.getInstance(context);
     }
 
     // Reveal identity to another user
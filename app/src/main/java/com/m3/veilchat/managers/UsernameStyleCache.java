@@ -0,0 +1,172 @@
+package com.m3.veilchat.managers;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Spannable;
+import android.text.SpannableString;
+import android.text.SpannedString;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StyleSpan;
+import com.m3.veilchat.R;
+import com.m3.veilchat.models.Message;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ready-to-apply sender styling for message binds, keyed by sender and persona for the current day.
+ * Entries hold the styled display name and avatar, built on a background thread from
+ * UsernameStyleManager, so a bind is a single map lookup with no hashing or prefs access.
+ * The whole cache is replaced when the day rolls over, since every sender's style changes then.
+ */
+public class UsernameStyleCache {
+    private static final int DEFAULT_COLOR = Color.parseColor("#FF6B6B");
+    private static final int[] AVATARS = {
+            R.drawable.avatar_1, R.drawable.avatar_2, R.drawable.avatar_3, R.drawable.avatar_4,
+            R.drawable.avatar_5, R.drawable.avatar_6, R.drawable.avatar_7, R.drawable.avatar_8
+    };
+
+    private static UsernameStyleCache instance;
+
+    public static final class SenderStyle {
+        private final CharSequence styledName;
+        private final int avatarResId;
+
+        SenderStyle(CharSequence styledName, int avatarResId) {
+            this.styledName = styledName;
+            this.avatarResId = avatarResId;
+        }
+
+        public CharSequence getStyledName() { return styledName; }
+        public int getAvatarResId() { return avatarResId; }
+    }
+
+    // A sender as one persona: the same user posting as two personas gets two entries
+    private static final class SenderKey {
+        private final String senderId;
+        private final String personaId;
+        private final String displayName;
+
+        SenderKey(Message message) {
+            senderId = message.getSenderId();
+            personaId = message.getSenderPersonaId();
+            displayName = message.getSenderDisplayName();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SenderKey)) return false;
+            SenderKey other = (SenderKey) o;
+            return Objects.equals(senderId, other.senderId)
+                    && Objects.equals(personaId, other.personaId)
+                    && Objects.equals(displayName, other.displayName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(senderId, personaId, displayName);
+        }
+    }
+
+    private final UsernameStyleManager styleManager;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Today's styles by sender and persona; written on the executor, read on the main thread
+    private volatile Map<SenderKey, SenderStyle> styles = new ConcurrentHashMap<>();
+    private volatile long dayEndsAt;
+    // Confined to the executor
+    private String day;
+
+    private UsernameStyleCache(Context context) {
+        styleManager = new UsernameStyleManager(context);
+    }
+
+    public static synchronized UsernameStyleCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new UsernameStyleCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Today's style for the message's sender, or null until prefetch has built it
+    public SenderStyle peek(Message message) {
+        if (message.getSenderId() == null || System.currentTimeMillis() >= dayEndsAt) return null;
+        return styles.get(new SenderKey(message));
+    }
+
+    // Build the styles these messages still need; onUpdated runs on the main thread if any were added
+    public void prefetch(List<Message> messages, Runnable onUpdated) {
+        List<Message> snapshot = new ArrayList<>(messages);
+        executor.execute(() -> {
+            rollOverIfNeeded();
+            boolean added = false;
+            for (Message message : snapshot) {
+                if (message.isSystemMessage() || message.getSenderId() == null) continue;
+                SenderKey key = new SenderKey(message);
+                if (!styles.containsKey(key)) {
+                    styles.put(key, build(message));
+                    added = true;
+                }
+            }
+            if (added && onUpdated != null) {
+                mainHandler.post(onUpdated);
+            }
+        });
+    }
+
+    private void rollOverIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now < dayEndsAt) return;
+
+        Calendar midnight = Calendar.getInstance();
+        midnight.setTimeInMillis(now);
+        midnight.set(Calendar.HOUR_OF_DAY, 0);
+        midnight.set(Calendar.MINUTE, 0);
+        midnight.set(Calendar.SECOND, 0);
+        midnight.set(Calendar.MILLISECOND, 0);
+        midnight.add(Calendar.DAY_OF_MONTH, 1);
+
+        day = UsernameStyleManager.dayOf(now);
+        styles = new ConcurrentHashMap<>();
+        dayEndsAt = midnight.getTimeInMillis();
+    }
+
+    private SenderStyle build(Message message) {
+        UsernameStyleManager.UsernameStyle style = styleManager.getStyle(message.getSenderId(), day);
+        String displayName = message.getSenderDisplayName() != null ? message.getSenderDisplayName() : "Anonymous";
+
+        SpannableString styledName = new SpannableString(displayName);
+        styledName.setSpan(new ForegroundColorSpan(parseColor(style.getTextColor())), 0, displayName.length(),
+                Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        styledName.setSpan(new StyleSpan("italic".equals(style.getFontStyle()) ? Typeface.BOLD_ITALIC : Typeface.BOLD),
+                0, displayName.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        // Avatars follow the persona, so they stay the same across days
+        String personaId = message.getSenderPersonaId();
+        String avatarSeed = personaId != null && !personaId.isEmpty() ? personaId
+                : (message.getSenderDisplayName() != null ? message.getSenderDisplayName() : "anonymous");
+        int avatarResId = AVATARS[Math.abs(avatarSeed.hashCode() % AVATARS.length)];
+
+        // SpannedString is immutable, so TextView can use it without copying on every bind
+        return new SenderStyle(new SpannedString(styledName), avatarResId);
+    }
+
+    private static int parseColor(String color) {
+        if (color == null) return DEFAULT_COLOR;
+        try {
+            return Color.parseColor(color);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_COLOR;
+        }
+    }
+}
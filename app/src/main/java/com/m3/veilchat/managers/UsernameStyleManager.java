@@ -5,15 +5,29 @@ import android.graphics.Color;
 import android.graphics.Typeface;
 import android.util.Log;
 import com.m3.veilchat.utils.SecurePrefsManager;
-import java.security.MessageDigest;
-import java.time.LocalDate;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
 
 public class UsernameStyleManager {
     private static final String TAG = "UsernameStyleManager";
+    private static final int MAX_CACHED_STYLES = 256;
     private SecurePrefsManager securePrefsManager;
     private Random random;
 
+    // Parsed styles by prefs key, least recently used evicted first
+    private final Map<String, UsernameStyle> styleCache = new LinkedHashMap<String, UsernameStyle>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UsernameStyle> eldest) {
+            return size() > MAX_CACHED_STYLES;
+        }
+    };
+    // Last day whose stale styles were dropped from prefs
+    private String compactedDay;
+
     // Predefined color schemes
     private final String[] colorSchemes = {
             "#FF6B6B", "#4ECDC4", "#45B7D1", "#96CEB4", "#FFEAA7", "#DDA0DD", "#98D8C8", "#F7DC6F",
@@ -24,29 +38,47 @@ public class UsernameStyleManager {
     private final String[] fontStyles = {"normal", "bold", "italic"};
 
     public UsernameStyleManager(Context context) {
-        this.securePrefsManager = new SecurePrefsManager(context);
+        this.securePrefsManager = SecurePrefsManager.getInstance(context);
         this.random = new Random();
     }
 
     // Generate daily style based on user ID and current date
     public UsernameStyle getTodaysStyle(String userId) {
-        String styleKey = getDailyStyleKey(userId);
+        return getStyle(userId, dayOf(System.currentTimeMillis()));
+    }
 
-        // Check if we already generated today's style
-        UsernameStyle cachedStyle = getCachedStyle(styleKey);
-        if (cachedStyle != null) {
-            return cachedStyle;
+    // Style of a user for the given day, as formatted by dayOf
+    public synchronized UsernameStyle getStyle(String userId, String day) {
+        if (!day.equals(compactedDay)) {
+            compactStyles(day);
         }
 
-        // Generate new style for today
-        UsernameStyle newStyle = generateStyle(userId);
-        cacheStyle(styleKey, newStyle);
+        String styleKey = getDailyStyleKey(userId, day);
+        UsernameStyle style = styleCache.get(styleKey);
+        if (style != null) {
+            return style;
+        }
 
-        return newStyle;
+        // Check if we already generated today's style
+        style = getCachedStyle(styleKey);
+        if (style == null) {
+            // Generate new style for today
+            style = generateStyle(userId, day);
+            cacheStyle(styleKey, style);
+        }
+        styleCache.put(styleKey, style);
+        return style;
+    }
+
+    // On the first lookup of a day, forget every other day's styles so prefs hold one day at most
+    private void compactStyles(String day) {
+        compactedDay = day;
+        styleCache.clear();
+        securePrefsManager.removeCachedStylesExcept("_" + day);
     }
 
-    private UsernameStyle generateStyle(String userId) {
-        long dailySeed = getDailySeed(userId);
+    private UsernameStyle generateStyle(String userId, String day) {
+        long dailySeed = DailyStyleSeed.forUser(userId, day);
         Random dailyRandom = new Random(dailySeed);
 
         UsernameStyle style = new UsernameStyle();
@@ -73,31 +105,13 @@ public class UsernameStyleManager {
         return style;
     }
 
-    private long getDailySeed(String userId) {
-        try {
-            // Combine user ID with current date to get daily-changing seed
-            String dateString = LocalDate.now().toString();
-            String seedString = userId + dateString;
-
-            MessageDigest digest = MessageDigest.getInstance("MD5");
-            byte[] hash = digest.digest(seedString.getBytes());
-
-            // Convert first 8 bytes to long
-            long seed = 0;
-            for (int i = 0; i < 8; i++) {
-                seed = (seed << 8) | (hash[i] & 0xFF);
-            }
-
-            return seed;
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to generate daily seed", e);
-            return System.currentTimeMillis() / (24 * 60 * 60 * 1000); // Fallback: daily changing
-        }
+    // Local calendar day as yyyy-MM-dd, the format styles have always been seeded and keyed with
+    public static String dayOf(long timeMillis) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(timeMillis));
     }
 
-    private String getDailyStyleKey(String userId) {
-        String today = java.time.LocalDate.now().toString();
-        return "username_style_" + userId + "_" + today;
+    private String getDailyStyleKey(String userId, String day) {
+        return "username_style_" + userId + "_" + day;
     }
 
     private UsernameStyle getCachedStyle(String key) {
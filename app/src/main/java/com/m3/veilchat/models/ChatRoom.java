@@ -1,6 +1,7 @@
 package com.m3.veilchat.models;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 public class ChatRoom {
@@ -16,8 +17,10 @@ public class ChatRoom {
     private String interestTag;
     private boolean isActive;
     private long expiresAt; // For ephemeral rooms
+    private Date deleteAt; // Firestore TTL field, mirrors expiresAt
     private int maxParticipants;
     private String rules; // "ephemeral", "blink", "cipher", etc.
+    private List<String> searchTokens; // Lowercase word prefixes of name and description, for discovery
 
     // Constructors
     public ChatRoom() {
@@ -71,7 +74,13 @@ public class ChatRoom {
     public void setActive(boolean active) { isActive = active; }
 
     public long getExpiresAt() { return expiresAt; }
-    public void setExpiresAt(long expiresAt) { this.expiresAt = expiresAt; }
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+        this.deleteAt = expiresAt > 0 ? new Date(expiresAt) : null;
+    }
+
+    public Date getDeleteAt() { return deleteAt; }
+    public void setDeleteAt(Date deleteAt) { this.deleteAt = deleteAt; }
 
     public int getMaxParticipants() { return maxParticipants; }
     public void setMaxParticipants(int maxParticipants) { this.maxParticipants = maxParticipants; }
@@ -79,6 +88,9 @@ public class ChatRoom {
     public String getRules() { return rules; }
     public void setRules(String rules) { this.rules = rules; }
 
+    public List<String> getSearchTokens() { return searchTokens; }
+    public void setSearchTokens(List<String> searchTokens) { this.searchTokens = searchTokens; }
+
     // Helper methods
     public void addParticipant(String userId) {
         if (!participantIds.contains(userId)) {
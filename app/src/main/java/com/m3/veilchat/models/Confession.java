@@ -1,5 +1,7 @@
 package com.m3.veilchat.models;
 
+import com.m3.veilchat.utils.HotScore;
+
 public class Confession {
     private String confessionId;
     private String content;
@@ -10,6 +12,8 @@ public class Confession {
     private int likeCount;
     private boolean isAnonymous;
     private String moodTag;
+    // Trending rank, recomputed whenever likeCount or replyCount is written
+    private double hotScore;
 
     public Confession() {}
 
@@ -21,6 +25,7 @@ public class Confession {
         this.isAnonymous = true;
         this.replyCount = 0;
         this.likeCount = 0;
+        this.hotScore = HotScore.of(0, 0, timestamp);
     }
 
     // Getters and Setters
@@ -50,4 +55,7 @@ public class Confession {
 
     public String getMoodTag() { return moodTag; }
     public void setMoodTag(String moodTag) { this.moodTag = moodTag; }
-}
\ No newline at end of file
+
+    public double getHotScore() { return hotScore; }
+    public void setHotScore(double hotScore) { this.hotScore = hotScore; }
+}
@@ -1,6 +1,8 @@
 package com.m3.veilchat.models;
 
+import com.google.firebase.firestore.Exclude;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 public class Message {
@@ -13,6 +15,7 @@ public class Message {
     private String messageType; // "text", "image", "system"
     private long timestamp;
     private long expiresAt; // For self-destructing messages
+    private Date deleteAt; // Firestore TTL field, mirrors expiresAt
     private boolean isRead;
     private String rules; // "blink", "cipher", etc.
     private String cipherKey; // For encrypted messages
@@ -20,6 +23,8 @@ public class Message {
     private long readAt;
     private List<String> readByUserIds; // Track who read it
 
+    private transient boolean pending; // Local echo not yet acknowledged by the server
+
     // Constructors
     public Message() {
         this.timestamp = System.currentTimeMillis();
@@ -80,7 +85,13 @@ public class Message {
     public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
 
     public long getExpiresAt() { return expiresAt; }
-    public void setExpiresAt(long expiresAt) { this.expiresAt = expiresAt; }
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+        this.deleteAt = expiresAt > 0 ? new Date(expiresAt) : null;
+    }
+
+    public Date getDeleteAt() { return deleteAt; }
+    public void setDeleteAt(Date deleteAt) { this.deleteAt = deleteAt; }
 
     public boolean isRead() { return isRead; }
     public void setRead(boolean read) { isRead = read; }
@@ -91,6 +102,11 @@ public class Message {
     public String getCipherKey() { return cipherKey; }
     public void setCipherKey(String cipherKey) { this.cipherKey = cipherKey; }
 
+    @Exclude
+    public boolean isPending() { return pending; }
+    @Exclude
+    public void setPending(boolean pending) { this.pending = pending; }
+
     // Helper methods
     public boolean isBlinkMessage() {
         return "blink".equals(rules);
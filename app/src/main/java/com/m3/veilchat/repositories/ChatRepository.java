@@ -1,92 +1,146 @@
 package com.m3.veilchat.repositories;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.MutableLiveData;
 import com.google.firebase.firestore.*;
 import com.m3.veilchat.models.ChatRoom;
 import com.m3.veilchat.models.Message;
+import com.m3.veilchat.models.Persona;
+import com.m3.veilchat.models.User;
 import com.google.firebase.auth.FirebaseAuth;
 import com.m3.veilchat.utils.EncryptionUtils;
+import com.m3.veilchat.utils.MessageDecryptor;
+import com.m3.veilchat.utils.SearchTokens;
 import com.m3.veilchat.utils.SecurePrefsManager;
 import javax.crypto.SecretKey;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 public class ChatRepository {
     private static final String TAG = "ChatRepository";
+    private static final int MESSAGE_PAGE_SIZE = 50;
+    private static final int MESSAGE_SEARCH_LIMIT = 100;
+    private static final int DISCOVER_PAGE_SIZE = 30;
+    // Pages fetched on their own per user action when the per-word check empties a page;
+    // past that, scrolling asks for more
+    private static final int MAX_EMPTY_DISCOVER_PAGES = 2;
+
+    private static ChatRepository instance;
+
     private FirebaseFirestore firestore;
     private FirebaseAuth firebaseAuth;
     private SecurePrefsManager securePrefsManager;
+    private MessageDecryptor messageDecryptor;
+    private MessageSender messageSender;
+    private LocalMessageStore localStore;
+    private final MessageSender.Listener sendListener = this::onMessageSendFailed;
 
-    private MutableLiveData<List<ChatRoom>> publicRooms = new MutableLiveData<>();
     private MutableLiveData<List<ChatRoom>> userRooms = new MutableLiveData<>();
     private MutableLiveData<List<Message>> roomMessages = new MutableLiveData<>();
     private MutableLiveData<String> errorMessage = new MutableLiveData<>();
-
-    // Cleanup task for expired rooms and messages
-    private Timer cleanupTimer;
-
-    public ChatRepository(Context context) {
+    private MutableLiveData<Boolean> hasMoreMessages = new MutableLiveData<>();
+    private MutableLiveData<List<Message>> messageSearchResults = new MutableLiveData<>();
+    private MutableLiveData<List<ChatRoom>> discoverRooms = new MutableLiveData<>();
+    private MutableLiveData<Boolean> hasMoreDiscoverRooms = new MutableLiveData<>();
+
+    // Snapshot listeners shared by every screen observing the same query
+    private final SharedListeners listeners = new SharedListeners();
+
+    // Windowed message state for the currently open room, confined to the decryption executor
+    private volatile String activeRoomId;
+    private DocumentSnapshot oldestMessageCursor;
+    private final List<Message> olderMessages = new ArrayList<>();
+    private final List<Message> liveMessages = new ArrayList<>();
+    private final List<Message> pendingMessages = new ArrayList<>();
+    // Rendered from the local store until the first snapshot arrives
+    private final List<Message> cachedMessages = new ArrayList<>();
+    private boolean isLoadingOlderMessages;
+    private boolean hasOlderMessages;
+
+    // Room lists mirrored from their snapshot listeners and updated from document changes
+    private final List<ChatRoom> userRoomList = new ArrayList<>();
+    // Room lists whose listener has delivered, so the disk copy must not overwrite them
+    private final Set<String> liveRoomLists = new HashSet<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Paged discovery results for the current filters; filtering happens in the Firestore query
+    private Query discoverQuery;
+    private List<String> discoverWords = new ArrayList<>();
+    private DocumentSnapshot discoverCursor;
+    private final List<ChatRoom> discoverRoomList = new ArrayList<>();
+    private boolean isLoadingDiscoverRooms;
+    private boolean hasMoreDiscover;
+
+    // Current user's active persona, kept fresh by a users/{uid} listener so sends skip the lookup
+    private ListenerRegistration currentUserListener;
+    private String currentUserListenerId;
+    private volatile boolean currentPersonaLoaded;
+    private volatile Persona currentPersona;
+
+    private ChatRepository(Context context) {
         firestore = FirebaseFirestore.getInstance();
         firebaseAuth = FirebaseAuth.getInstance();
-        securePrefsManager = new SecurePrefsManager(context);
-        startCleanupTask();
+        securePrefsManager = SecurePrefsManager.getInstance(context);
+        messageDecryptor = MessageDecryptor.getInstance(context);
+        messageSender = MessageSender.getInstance();
+        messageSender.addListener(sendListener);
+        localStore = LocalMessageStore.getInstance(context);
+        watchCurrentPersona();
     }
 
-    private void startCleanupTask() {
-        cleanupTimer = new Timer();
-        cleanupTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                cleanupExpiredData();
-            }
-        }, 0, 60000); // Run every minute
+    // One repository per process, so every screen shares the same listeners and caches
+    public static synchronized ChatRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChatRepository(context.getApplicationContext());
+        }
+        return instance;
     }
 
-    private void cleanupExpiredData() {
-        cleanupExpiredRooms();
-        cleanupExpiredMessages();
-    }
+    // (Re)attach the persona listener when the signed-in user changes
+    private void watchCurrentPersona() {
+        String userId = getCurrentUserId();
+        if (userId == null || userId.equals(currentUserListenerId)) return;
 
-    private void cleanupExpiredRooms() {
-        firestore.collection("chat_rooms")
-                .whereEqualTo("isActive", true)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
-                        ChatRoom room = doc.toObject(ChatRoom.class);
-                        if (room != null && room.hasExpired()) {
-                            // Deactivate expired room
-                            firestore.collection("chat_rooms").document(doc.getId())
-                                    .update("isActive", false)
-                                    .addOnSuccessListener(aVoid -> {
-                                        Log.d(TAG, "Deactivated expired room: " + doc.getId());
-                                    });
-                        }
+        if (currentUserListener != null) {
+            currentUserListener.remove();
+        }
+        currentPersonaLoaded = false;
+        currentPersona = null;
+        currentUserListenerId = userId;
+        currentUserListener = firestore.collection("users").document(userId)
+                .addSnapshotListener((userDoc, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Listen failed for current user", error);
+                        return;
+                    }
+                    if (userDoc != null) {
+                        currentPersona = findCurrentPersona(userDoc);
+                        currentPersonaLoaded = true;
                     }
                 });
     }
 
-    private void cleanupExpiredMessages() {
-        firestore.collection("messages")
-                .whereLessThan("expiresAt", System.currentTimeMillis())
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
-                        // Delete expired messages
-                        firestore.collection("messages").document(doc.getId())
-                                .delete()
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d(TAG, "Deleted expired message: " + doc.getId());
-                                });
-                    }
-                });
+    private Persona findCurrentPersona(DocumentSnapshot userDoc) {
+        if (!userDoc.exists()) return null;
+        User user = userDoc.toObject(User.class);
+        if (user == null || user.getCurrentPersonaId() == null) return null;
+        for (Persona persona : user.getPersonas()) {
+            if (persona.getPersonaId().equals(user.getCurrentPersonaId())) {
+                return persona;
+            }
+        }
+        return null;
     }
 
     // Enhanced sendMessage with persona support
     public void sendMessage(String roomId, String content, String rules) {
         String userId = getCurrentUserId();
         if (userId == null) return;
+        watchCurrentPersona();
 
         Message message = new Message(roomId, userId, content);
         message.setRules(rules);
@@ -122,6 +176,7 @@ public class ChatRepository {
         }
 
         message.setContent(finalContent);
+        message.setMessageId(firestore.collection("messages").document().getId());
 
         // Set expiration for blink messages (10 seconds)
         if ("blink".equals(rules)) {
@@ -129,67 +184,75 @@ public class ChatRepository {
         }
 
         // Add sender display name from current persona
-        firestore.collection("users").document(userId).get()
-                .addOnSuccessListener(userDoc -> {
-                    if (userDoc.exists()) {
-                        com.m3.veilchat.models.User user = userDoc.toObject(com.m3.veilchat.models.User.class);
-                        if (user != null && user.getCurrentPersonaId() != null) {
-                            for (com.m3.veilchat.models.Persona persona : user.getPersonas()) {
-                                if (persona.getPersonaId().equals(user.getCurrentPersonaId())) {
-                                    message.setSenderDisplayName(persona.getDisplayName());
-                                    message.setSenderPersonaId(persona.getPersonaId());
-                                    break;
-                                }
-                            }
-                        }
-                    }
+        if (currentPersonaLoaded) {
+            applyPersona(message, currentPersona);
+        }
 
-                    // Send the message
-                    firestore.collection("messages")
-                            .add(message)
-                            .addOnSuccessListener(documentReference -> {
-                                Log.d(TAG, "Message sent with ID: " + documentReference.getId());
-                                updateRoomActivity(roomId);
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error sending message", e);
-                                errorMessage.setValue("Failed to send message");
-                            });
-                });
+        // Show the message straight away; the server copy replaces it by id when it arrives
+        Message echo = localEcho(message, content);
+        messageDecryptor.getExecutor().execute(() -> {
+            if (!roomId.equals(activeRoomId)) return;
+            pendingMessages.add(echo);
+            publishRoomMessages();
+        });
+
+        if (currentPersonaLoaded) {
+            messageSender.send(message);
+        } else {
+            // The persona listener hasn't delivered yet; look it up once for this send
+            firestore.collection("users").document(userId).get()
+                    .addOnSuccessListener(userDoc -> {
+                        applyPersona(message, findCurrentPersona(userDoc));
+                        messageSender.send(message);
+                    })
+                    .addOnFailureListener(e -> messageSender.send(message));
+        }
     }
 
-    // Rest of the existing methods remain the same...
-    public void loadPublicRooms() {
-        firestore.collection("chat_rooms")
-                .whereEqualTo("roomType", "public")
-                .whereEqualTo("isActive", true)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .addSnapshotListener((value, error) -> {
-                    if (error != null) {
-                        Log.e(TAG, "Listen failed for public rooms", error);
-                        errorMessage.setValue("Failed to load rooms");
-                        return;
-                    }
+    private void applyPersona(Message message, Persona persona) {
+        if (persona != null) {
+            message.setSenderDisplayName(persona.getDisplayName());
+            message.setSenderPersonaId(persona.getPersonaId());
+        }
+    }
 
-                    List<ChatRoom> rooms = new ArrayList<>();
-                    if (value != null) {
-                        for (DocumentSnapshot doc : value.getDocuments()) {
-                            ChatRoom room = doc.toObject(ChatRoom.class);
-                            if (room != null && !room.hasExpired()) {
-                                room.setRoomId(doc.getId());
-                                rooms.add(room);
-                            }
-                        }
-                    }
-                    publicRooms.setValue(rooms);
-                });
+    // Pending copy of an outgoing message that shows its plaintext content
+    private Message localEcho(Message message, String content) {
+        Message echo = new Message(message.getRoomId(), message.getSenderId(), content);
+        echo.setMessageId(message.getMessageId());
+        echo.setRules(message.getRules());
+        echo.setTimestamp(message.getTimestamp());
+        echo.setExpiresAt(message.getExpiresAt());
+        echo.setSenderDisplayName(message.getSenderDisplayName());
+        echo.setSenderPersonaId(message.getSenderPersonaId());
+        echo.setPending(true);
+        return echo;
     }
 
-    public void loadUserRooms() {
+    // Outgoing messages the queue failed to deliver are taken back out of the list
+    private void onMessageSendFailed(Message message) {
+        errorMessage.postValue("Failed to send message");
+        messageDecryptor.getExecutor().execute(() -> {
+            if (removePending(message.getMessageId())) {
+                publishRoomMessages();
+            }
+        });
+    }
+
+    // Rooms listeners live for as long as at least one owner is observing them
+    public void loadUserRooms(LifecycleOwner owner) {
         String userId = getCurrentUserId();
         if (userId == null) return;
 
-        firestore.collection("chat_rooms")
+        listeners.acquire(owner, "user_rooms/" + userId, () -> listenToUserRooms(userId));
+    }
+
+    private ListenerRegistration listenToUserRooms(String userId) {
+        String listKey = "user_rooms/" + userId;
+        userRoomList.clear();
+        showCachedRooms(listKey, userRooms);
+
+        return firestore.collection("chat_rooms")
                 .whereArrayContains("participantIds", userId)
                 .whereEqualTo("isActive", true)
                 .orderBy("createdAt", Query.Direction.DESCENDING)
@@ -199,21 +262,152 @@ public class ChatRepository {
                         errorMessage.setValue("Failed to load your rooms");
                         return;
                     }
-
-                    List<ChatRoom> rooms = new ArrayList<>();
                     if (value != null) {
-                        for (DocumentSnapshot doc : value.getDocuments()) {
-                            ChatRoom room = doc.toObject(ChatRoom.class);
-                            if (room != null && !room.hasExpired()) {
-                                room.setRoomId(doc.getId());
-                                rooms.add(room);
-                            }
+                        applyRoomChanges(userRoomList, value);
+                        cacheRooms(listKey, userRoomList);
+                    }
+                    userRooms.setValue(activeRooms(userRoomList));
+                });
+    }
+
+    // Show the room list saved on disk until its listener delivers the first snapshot
+    private void showCachedRooms(String listKey, MutableLiveData<List<ChatRoom>> target) {
+        liveRoomLists.remove(listKey);
+        localStore.getExecutor().execute(() -> {
+            List<ChatRoom> cached;
+            try {
+                cached = localStore.getRoomList(listKey);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to read cached rooms", e);
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!liveRoomLists.contains(listKey) && !cached.isEmpty()) {
+                    target.setValue(activeRooms(cached));
+                }
+            });
+        });
+    }
+
+    private void cacheRooms(String listKey, List<ChatRoom> rooms) {
+        liveRoomLists.add(listKey);
+        List<ChatRoom> snapshot = new ArrayList<>(rooms);
+        localStore.getExecutor().execute(() -> {
+            try {
+                localStore.putRoomList(listKey, snapshot);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to cache rooms", e);
+            }
+        });
+    }
+
+    // Start a new discovery search; null filters and an empty query match every public room.
+    // Only the most selective query word is filtered server-side, the others are checked per page.
+    public void discoverRooms(String query, String moodTag, String interestTag) {
+        Query roomsQuery = firestore.collection("chat_rooms")
+                .whereEqualTo("roomType", "public")
+                .whereEqualTo("isActive", true);
+        if (moodTag != null) {
+            roomsQuery = roomsQuery.whereEqualTo("moodTag", moodTag);
+        }
+        if (interestTag != null) {
+            roomsQuery = roomsQuery.whereEqualTo("interestTag", interestTag);
+        }
+        List<String> words = SearchTokens.words(query);
+        String serverToken = SearchTokens.serverToken(words);
+        if (serverToken != null) {
+            roomsQuery = roomsQuery.whereArrayContains("searchTokens", serverToken);
+        }
+
+        discoverQuery = roomsQuery.orderBy("createdAt", Query.Direction.DESCENDING);
+        discoverWords = words;
+        discoverCursor = null;
+        discoverRoomList.clear();
+        isLoadingDiscoverRooms = false;
+        hasMoreDiscover = true;
+        loadMoreDiscoverRooms();
+    }
+
+    public void loadMoreDiscoverRooms() {
+        loadDiscoverPage(MAX_EMPTY_DISCOVER_PAGES);
+    }
+
+    private void loadDiscoverPage(int emptyPagesLeft) {
+        if (discoverQuery == null || isLoadingDiscoverRooms || !hasMoreDiscover) return;
+        isLoadingDiscoverRooms = true;
+
+        Query search = discoverQuery;
+        List<String> words = discoverWords;
+        Query page = discoverCursor != null ? search.startAfter(discoverCursor) : search;
+        page.limit(DISCOVER_PAGE_SIZE).get()
+                .addOnSuccessListener(value -> {
+                    // A newer search replaced this one while the page was loading
+                    if (search != discoverQuery) return;
+                    isLoadingDiscoverRooms = false;
+
+                    int added = 0;
+                    for (QueryDocumentSnapshot doc : value) {
+                        ChatRoom room = toChatRoom(doc);
+                        if (!room.hasExpired()
+                                && SearchTokens.matchesAll(words, SearchTokens.words(room.getName(), room.getDescription()))) {
+                            discoverRoomList.add(room);
+                            added++;
                         }
                     }
-                    userRooms.setValue(rooms);
+                    if (!value.isEmpty()) {
+                        discoverCursor = value.getDocuments().get(value.size() - 1);
+                    }
+                    hasMoreDiscover = value.size() >= DISCOVER_PAGE_SIZE;
+                    hasMoreDiscoverRooms.setValue(hasMoreDiscover);
+                    discoverRooms.setValue(new ArrayList<>(discoverRoomList));
+
+                    // Nothing on this page survived the per-word check; try a few more so the list can fill
+                    if (added == 0 && hasMoreDiscover && emptyPagesLeft > 0) {
+                        loadDiscoverPage(emptyPagesLeft - 1);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (search != discoverQuery) return;
+                    isLoadingDiscoverRooms = false;
+                    Log.e(TAG, "Failed to discover rooms", e);
+                    errorMessage.setValue("Failed to load rooms");
                 });
     }
 
+    // Apply only the documents that changed since the previous snapshot, in query order
+    private void applyRoomChanges(List<ChatRoom> rooms, QuerySnapshot value) {
+        for (DocumentChange change : value.getDocumentChanges()) {
+            switch (change.getType()) {
+                case ADDED:
+                    rooms.add(change.getNewIndex(), toChatRoom(change.getDocument()));
+                    break;
+                case MODIFIED:
+                    rooms.remove(change.getOldIndex());
+                    rooms.add(change.getNewIndex(), toChatRoom(change.getDocument()));
+                    break;
+                case REMOVED:
+                    rooms.remove(change.getOldIndex());
+                    break;
+            }
+        }
+    }
+
+    private ChatRoom toChatRoom(QueryDocumentSnapshot doc) {
+        ChatRoom room = doc.toObject(ChatRoom.class);
+        room.setRoomId(doc.getId());
+        return room;
+    }
+
+    private List<ChatRoom> activeRooms(List<ChatRoom> rooms) {
+        List<ChatRoom> active = new ArrayList<>(rooms.size());
+        for (ChatRoom room : rooms) {
+            if (!room.hasExpired()) {
+                active.add(room);
+            }
+        }
+        return active;
+    }
+
     public void createRoom(ChatRoom room) {
         String userId = getCurrentUserId();
         if (userId == null) {
@@ -224,6 +418,7 @@ public class ChatRepository {
         room.setCreatedBy(userId);
         room.addParticipant(userId);
         room.getAdminIds().add(userId);
+        room.setSearchTokens(SearchTokens.prefixes(room.getName(), room.getDescription()));
 
         // Set expiration for ephemeral rooms (24 hours)
         if (room.isEphemeral()) {
@@ -258,10 +453,17 @@ public class ChatRepository {
                 });
     }
 
+    // The user navigated away from the room; write out its coalesced activity
+    public void exitRoom(String roomId) {
+        RoomActivityWriter.getInstance().flush(roomId);
+    }
+
     public void leaveRoom(String roomId) {
         String userId = getCurrentUserId();
         if (userId == null) return;
 
+        RoomActivityWriter.getInstance().flush(roomId);
+
         firestore.collection("chat_rooms").document(roomId)
                 .update("participantIds", FieldValue.arrayRemove(userId))
                 .addOnSuccessListener(aVoid -> {
@@ -274,54 +476,237 @@ public class ChatRepository {
                 });
     }
 
-    // Enhanced message loading with decryption
-    public void loadRoomMessages(String roomId) {
-        firestore.collection("messages")
-                .whereEqualTo("roomId", roomId)
-                .orderBy("timestamp", Query.Direction.ASCENDING)
-                .addSnapshotListener((value, error) -> {
+    // Windowed message loading: live listener on the newest page only, older pages on demand.
+    // Snapshots are delivered, decoded and decrypted on the decryption executor, never the main thread.
+    public void loadRoomMessages(LifecycleOwner owner, String roomId) {
+        String previousRoomId = activeRoomId;
+        if (previousRoomId != null && !previousRoomId.equals(roomId)) {
+            // Only one room's window is kept, so switching rooms drops the previous room's listener
+            listeners.remove(roomMessagesKey(previousRoomId));
+        }
+        listeners.acquire(owner, roomMessagesKey(roomId), () -> listenToRoomMessages(roomId));
+    }
+
+    private String roomMessagesKey(String roomId) {
+        return "room_messages/" + roomId;
+    }
+
+    private ListenerRegistration listenToRoomMessages(String roomId) {
+        activeRoomId = roomId;
+        hasMoreMessages.setValue(true);
+
+        Executor executor = messageDecryptor.getExecutor();
+        executor.execute(() -> {
+            oldestMessageCursor = null;
+            olderMessages.clear();
+            liveMessages.clear();
+            isLoadingOlderMessages = false;
+            hasOlderMessages = true;
+
+            // Unacknowledged sends, including ones from an earlier session, come back from
+            // Firestore's cache with pending writes, so only this session's echoes are kept here
+            pendingMessages.clear();
+
+            // Render whatever is on disk straight away; the snapshot replaces it
+            cachedMessages.clear();
+            try {
+                localStore.deleteExpiredMessages();
+                cachedMessages.addAll(localStore.getRecentMessages(roomId, MESSAGE_PAGE_SIZE));
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to read cached messages", e);
+            }
+            publishRoomMessages();
+        });
+
+        return roomMessagesQuery(roomId)
+                .limitToLast(MESSAGE_PAGE_SIZE)
+                // Metadata changes deliver the server's acknowledgement of our own pending sends
+                .addSnapshotListener(executor, MetadataChanges.INCLUDE, (value, error) -> {
                     if (error != null) {
                         Log.e(TAG, "Listen failed for messages", error);
-                        errorMessage.setValue("Failed to load messages");
+                        errorMessage.postValue("Failed to load messages");
                         return;
                     }
+                    if (value == null || !roomId.equals(activeRoomId)) return;
 
-                    List<Message> messages = new ArrayList<>();
-                    if (value != null) {
-                        for (DocumentSnapshot doc : value.getDocuments()) {
-                            Message message = doc.toObject(Message.class);
-                            if (message != null && !message.hasExpired()) {
-                                message.setMessageId(doc.getId());
-
-                                // Decrypt messages if needed
-                                String content = message.getContent();
-                                try {
-                                    if ("cipher".equals(message.getRules())) {
-                                        String cipherKey = securePrefsManager.getCipherKey(roomId);
-                                        if (cipherKey != null) {
-                                            content = EncryptionUtils.decryptWithEmojiCipher(content, cipherKey);
-                                            message.setContent(content);
-                                        }
-                                    } else if ("encrypted".equals(message.getRules())) {
-                                        SecretKey roomKey = securePrefsManager.getRoomKey(roomId);
-                                        if (roomKey != null) {
-                                            content = EncryptionUtils.decrypt(content, roomKey);
-                                            message.setContent(content);
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Decryption failed for message", e);
-                                    // Keep encrypted content if decryption fails
-                                }
-
-                                messages.add(message);
-                            }
-                        }
+                    cachedMessages.clear();
+                    applyMessageChanges(roomId, value);
+
+                    if (oldestMessageCursor == null && !value.isEmpty()) {
+                        oldestMessageCursor = value.getDocuments().get(0);
+                        hasOlderMessages = value.size() >= MESSAGE_PAGE_SIZE;
+                        hasMoreMessages.postValue(hasOlderMessages);
                     }
-                    roomMessages.setValue(messages);
+                    publishRoomMessages();
                 });
     }
 
+    // Apply the snapshot's document changes to the live window; only changed documents are decoded
+    private void applyMessageChanges(String roomId, QuerySnapshot value) {
+        boolean windowFull = value.size() >= MESSAGE_PAGE_SIZE;
+        Long windowStart = value.isEmpty() ? null : value.getDocuments().get(0).getLong("timestamp");
+
+        List<Message> changed = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        for (DocumentChange change : value.getDocumentChanges(MetadataChanges.INCLUDE)) {
+            Message message;
+            switch (change.getType()) {
+                case ADDED:
+                    removePending(change.getDocument().getId());
+                    message = toDecryptedMessage(roomId, change.getDocument());
+                    liveMessages.add(change.getNewIndex(), message);
+                    changed.add(message);
+                    break;
+                case MODIFIED:
+                    liveMessages.remove(change.getOldIndex());
+                    message = toDecryptedMessage(roomId, change.getDocument());
+                    liveMessages.add(change.getNewIndex(), message);
+                    changed.add(message);
+                    break;
+                case REMOVED:
+                    Message removed = liveMessages.remove(change.getOldIndex());
+                    // A full window that moved forward pushed its oldest message into history
+                    if (windowFull && windowStart != null && removed.getTimestamp() < windowStart) {
+                        olderMessages.add(removed);
+                    } else {
+                        deleted.add(removed.getMessageId());
+                    }
+                    break;
+            }
+        }
+        cacheMessages(changed, deleted);
+
+        // A deletion can pull the window back over messages already paged in
+        if (windowStart != null && !olderMessages.isEmpty()
+                && olderMessages.get(olderMessages.size() - 1).getTimestamp() >= windowStart) {
+            olderMessages.removeIf(m -> m.getTimestamp() >= windowStart);
+        }
+    }
+
+    // Fetch the page of messages just before the oldest one currently loaded
+    public void loadOlderMessages() {
+        Executor executor = messageDecryptor.getExecutor();
+        executor.execute(() -> {
+            String roomId = activeRoomId;
+            if (roomId == null || oldestMessageCursor == null || isLoadingOlderMessages || !hasOlderMessages) {
+                return;
+            }
+            isLoadingOlderMessages = true;
+
+            roomMessagesQuery(roomId)
+                    .endBefore(oldestMessageCursor)
+                    .limitToLast(MESSAGE_PAGE_SIZE)
+                    .get()
+                    .addOnSuccessListener(executor, value -> {
+                        isLoadingOlderMessages = false;
+                        if (!roomId.equals(activeRoomId)) return;
+
+                        List<Message> page = new ArrayList<>(value.size());
+                        for (QueryDocumentSnapshot doc : value) {
+                            page.add(toDecryptedMessage(roomId, doc));
+                        }
+                        olderMessages.addAll(0, page);
+                        cacheMessages(page, Collections.<String>emptyList());
+
+                        if (!value.isEmpty()) {
+                            oldestMessageCursor = value.getDocuments().get(0);
+                        }
+                        hasOlderMessages = value.size() >= MESSAGE_PAGE_SIZE;
+                        hasMoreMessages.postValue(hasOlderMessages);
+                        publishRoomMessages();
+                    })
+                    .addOnFailureListener(executor, e -> {
+                        isLoadingOlderMessages = false;
+                        Log.e(TAG, "Failed to load older messages", e);
+                        errorMessage.postValue("Failed to load older messages");
+                    });
+        });
+    }
+
+    private Query roomMessagesQuery(String roomId) {
+        return firestore.collection("messages")
+                .whereEqualTo("roomId", roomId)
+                .orderBy("timestamp", Query.Direction.ASCENDING);
+    }
+
+    // Unchanged messages keep their instances, so the adapter's diff only rebinds what changed
+    private void publishRoomMessages() {
+        List<Message> messages = new ArrayList<>(olderMessages.size() + liveMessages.size());
+        addUnexpired(messages, olderMessages);
+        addUnexpired(messages, cachedMessages);
+        addUnexpired(messages, liveMessages);
+        addUnexpired(messages, pendingMessages);
+        roomMessages.postValue(messages);
+    }
+
+    // Mirror message changes into the local store; must be called on the decryption executor
+    private void cacheMessages(List<Message> changed, List<String> deleted) {
+        try {
+            localStore.putMessages(changed);
+            localStore.deleteMessages(deleted);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to cache messages", e);
+        }
+    }
+
+    private boolean removePending(String messageId) {
+        for (int i = 0; i < pendingMessages.size(); i++) {
+            if (pendingMessages.get(i).getMessageId().equals(messageId)) {
+                pendingMessages.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addUnexpired(List<Message> target, List<Message> source) {
+        for (Message message : source) {
+            if (!message.hasExpired()) {
+                target.add(message);
+            }
+        }
+    }
+
+    // Deserialize a message document and decrypt its content if needed
+    private Message toDecryptedMessage(String roomId, QueryDocumentSnapshot doc) {
+        Message message = doc.toObject(Message.class);
+        message.setMessageId(doc.getId());
+        message.setPending(doc.getMetadata().hasPendingWrites());
+        messageDecryptor.decrypt(roomId, message);
+        return message;
+    }
+
+    // Drop every decrypted message held in memory, e.g. when the app locks. The open room's
+    // listener goes with it; the room screen starts it again when it is shown.
+    public void clearDecryptedMessages() {
+        String roomId = activeRoomId;
+        if (roomId != null) {
+            listeners.remove(roomMessagesKey(roomId));
+        }
+        activeRoomId = null;
+        messageSearchResults.setValue(Collections.<Message>emptyList());
+        messageDecryptor.getExecutor().execute(() -> {
+            oldestMessageCursor = null;
+            olderMessages.clear();
+            liveMessages.clear();
+            pendingMessages.clear();
+            cachedMessages.clear();
+            publishRoomMessages();
+        });
+    }
+
+    // Full-text search over every message cached on this device; results land in getMessageSearchResults
+    public void searchMessages(String query) {
+        localStore.getExecutor().execute(() -> {
+            try {
+                messageSearchResults.postValue(localStore.searchMessages(query, MESSAGE_SEARCH_LIMIT));
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Message search failed", e);
+                errorMessage.postValue("Search failed");
+            }
+        });
+    }
+
     // Create encrypted room
     public void createEncryptedRoom(ChatRoom room, String password) {
         String userId = getCurrentUserId();
@@ -333,6 +718,7 @@ public class ChatRepository {
         room.setCreatedBy(userId);
         room.addParticipant(userId);
         room.getAdminIds().add(userId);
+        room.setSearchTokens(SearchTokens.prefixes(room.getName(), room.getDescription()));
 
         // Set expiration for ephemeral rooms (24 hours)
         if (room.isEphemeral()) {
@@ -397,25 +783,26 @@ public class ChatRepository {
                 });
     }
 
-    private void updateRoomActivity(String roomId) {
-        firestore.collection("chat_rooms").document(roomId)
-                .update("lastActivity", System.currentTimeMillis())
-                .addOnFailureListener(e -> Log.e(TAG, "Error updating room activity", e));
-    }
-
     private String getCurrentUserId() {
         return firebaseAuth.getCurrentUser() != null ? firebaseAuth.getCurrentUser().getUid() : null;
     }
 
     // LiveData Getters
-    public MutableLiveData<List<ChatRoom>> getPublicRooms() { return publicRooms; }
     public MutableLiveData<List<ChatRoom>> getUserRooms() { return userRooms; }
     public MutableLiveData<List<Message>> getRoomMessages() { return roomMessages; }
     public MutableLiveData<String> getErrorMessage() { return errorMessage; }
+    public MutableLiveData<Boolean> getHasMoreMessages() { return hasMoreMessages; }
+    public MutableLiveData<List<Message>> getMessageSearchResults() { return messageSearchResults; }
+    public MutableLiveData<List<ChatRoom>> getDiscoverRooms() { return discoverRooms; }
+    public MutableLiveData<Boolean> getHasMoreDiscoverRooms() { return hasMoreDiscoverRooms; }
 
     public void cleanup() {
-        if (cleanupTimer != null) {
-            cleanupTimer.cancel();
+        listeners.removeAll();
+        activeRoomId = null;
+        if (currentUserListener != null) {
+            currentUserListener.remove();
+            currentUserListener = null;
+            currentUserListenerId = null;
         }
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.m3.veilchat.repositories;
 
 import android.util.Log;
 import androidx.lifecycle.MutableLiveData;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.firestore.*;
 import com.m3.veilchat.models.Confession;
 import com.google.firebase.auth.FirebaseAuth;
@@ -9,11 +10,33 @@ import java.util.*;
 
 public class ConfessionRepository {
     private static final String TAG = "ConfessionRepository";
+    private static final int CONFESSION_PAGE_SIZE = 20;
+    // Likes and replies are each spread over this many counter documents so no single document takes every write
+    static final int COUNTER_SHARD_COUNT = 10;
+    private static final int TRENDING_LIMIT = 20;
     private FirebaseFirestore firestore;
     private FirebaseAuth firebaseAuth;
 
     private MutableLiveData<List<Confession>> confessions = new MutableLiveData<>();
     private MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private MutableLiveData<Boolean> hasMoreConfessions = new MutableLiveData<>();
+    private MutableLiveData<List<Confession>> trendingConfessions = new MutableLiveData<>();
+
+    // Paged feed: a live listener on the newest page, older pages fetched on demand below it
+    private ListenerRegistration headListener;
+    private DocumentSnapshot oldestConfessionCursor;
+    private final List<Confession> headConfessions = new ArrayList<>();
+    private final List<Confession> olderConfessions = new ArrayList<>();
+    private boolean isLoadingOlderConfessions;
+    private boolean hasOlderConfessions;
+
+    // Top confessions by hotScore, kept live; only TRENDING_LIMIT documents are ever read
+    private ListenerRegistration trendingListener;
+    private final List<Confession> topConfessions = new ArrayList<>();
+
+    // Like counts shown ahead of the rolled-up likeCount, until the feed catches up with them
+    private final Map<String, Integer> optimisticLikeCounts = new HashMap<>();
+    private final Random shardPicker = new Random();
 
     public ConfessionRepository() {
         firestore = FirebaseFirestore.getInstance();
@@ -56,31 +79,180 @@ public class ConfessionRepository {
                 });
     }
 
-    // Load all confessions
+    // Load the newest page of confessions and keep it live; older pages come from loadOlderConfessions
     public void loadConfessions() {
-        firestore.collection("confessions")
-                .orderBy("timestamp", Query.Direction.DESCENDING)
+        if (headListener != null) {
+            headListener.remove();
+        }
+        oldestConfessionCursor = null;
+        headConfessions.clear();
+        olderConfessions.clear();
+        isLoadingOlderConfessions = false;
+        hasOlderConfessions = true;
+        hasMoreConfessions.setValue(true);
+
+        headListener = confessionsQuery()
+                .limit(CONFESSION_PAGE_SIZE)
                 .addSnapshotListener((value, error) -> {
                     if (error != null) {
                         Log.e(TAG, "Listen failed for confessions", error);
                         errorMessage.setValue("Failed to load confessions");
                         return;
                     }
+                    if (value == null) return;
 
-                    List<Confession> confessionList = new ArrayList<>();
-                    if (value != null) {
-                        for (DocumentSnapshot doc : value.getDocuments()) {
-                            Confession confession = doc.toObject(Confession.class);
-                            if (confession != null) {
-                                confession.setConfessionId(doc.getId());
-                                confessionList.add(confession);
-                            }
-                        }
+                    applyHeadChanges(value);
+
+                    if (oldestConfessionCursor == null && !value.isEmpty()) {
+                        oldestConfessionCursor = value.getDocuments().get(value.size() - 1);
+                        hasOlderConfessions = value.size() >= CONFESSION_PAGE_SIZE;
+                        hasMoreConfessions.setValue(hasOlderConfessions);
+                    }
+                    publishConfessions();
+                });
+    }
+
+    // Apply the head page's document changes; a new confession pushes the oldest one down into history
+    private void applyHeadChanges(QuerySnapshot value) {
+        boolean headFull = value.size() >= CONFESSION_PAGE_SIZE;
+        Long headEnd = value.isEmpty() ? null : value.getDocuments().get(value.size() - 1).getLong("timestamp");
+
+        for (DocumentChange change : value.getDocumentChanges()) {
+            switch (change.getType()) {
+                case ADDED:
+                    headConfessions.add(change.getNewIndex(), toConfession(change.getDocument()));
+                    break;
+                case MODIFIED:
+                    headConfessions.remove(change.getOldIndex());
+                    headConfessions.add(change.getNewIndex(), toConfession(change.getDocument()));
+                    break;
+                case REMOVED:
+                    Confession removed = headConfessions.remove(change.getOldIndex());
+                    if (headFull && headEnd != null && removed.getTimestamp() < headEnd) {
+                        olderConfessions.add(0, removed);
+                    }
+                    break;
+            }
+        }
+
+        // A deletion can pull the head back over confessions already paged in
+        if (headEnd != null && !olderConfessions.isEmpty()
+                && olderConfessions.get(0).getTimestamp() >= headEnd) {
+            olderConfessions.removeIf(c -> c.getTimestamp() >= headEnd);
+        }
+    }
+
+    // Listen to the top-ranked confessions; the ranking is maintained on write, so this reads only the top K.
+    // Confessions without a hotScore (posted before it existed and not yet backfilled) never appear here.
+    public void loadTrendingConfessions() {
+        if (trendingListener != null) {
+            trendingListener.remove();
+        }
+        topConfessions.clear();
+
+        trendingListener = firestore.collection("confessions")
+                .orderBy("hotScore", Query.Direction.DESCENDING)
+                .limit(TRENDING_LIMIT)
+                .addSnapshotListener((value, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Listen failed for trending confessions", error);
+                        errorMessage.setValue("Failed to load confessions");
+                        return;
+                    }
+                    if (value == null) return;
+
+                    topConfessions.clear();
+                    for (QueryDocumentSnapshot doc : value) {
+                        topConfessions.add(toConfession(doc));
                     }
-                    confessions.setValue(confessionList);
+                    publishTrending();
                 });
     }
 
+    // Fetch the page just below the oldest confession loaded so far
+    public void loadOlderConfessions() {
+        if (oldestConfessionCursor == null || isLoadingOlderConfessions || !hasOlderConfessions) return;
+        isLoadingOlderConfessions = true;
+
+        DocumentSnapshot cursor = oldestConfessionCursor;
+        confessionsQuery()
+                .startAfter(cursor)
+                .limit(CONFESSION_PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(value -> {
+                    isLoadingOlderConfessions = false;
+                    // The feed was reloaded while this page was in flight
+                    if (cursor != oldestConfessionCursor) return;
+
+                    for (QueryDocumentSnapshot doc : value) {
+                        olderConfessions.add(toConfession(doc));
+                    }
+                    if (!value.isEmpty()) {
+                        oldestConfessionCursor = value.getDocuments().get(value.size() - 1);
+                    }
+                    hasOlderConfessions = value.size() >= CONFESSION_PAGE_SIZE;
+                    hasMoreConfessions.setValue(hasOlderConfessions);
+                    publishConfessions();
+                })
+                .addOnFailureListener(e -> {
+                    isLoadingOlderConfessions = false;
+                    Log.e(TAG, "Failed to load older confessions", e);
+                    errorMessage.setValue("Failed to load confessions");
+                });
+    }
+
+    private Query confessionsQuery() {
+        return firestore.collection("confessions")
+                .orderBy("timestamp", Query.Direction.DESCENDING);
+    }
+
+    private Confession toConfession(DocumentSnapshot doc) {
+        Confession confession = doc.toObject(Confession.class);
+        confession.setConfessionId(doc.getId());
+        return confession;
+    }
+
+    private void publishConfessions() {
+        List<Confession> feed = new ArrayList<>(headConfessions.size() + olderConfessions.size());
+        addWithOptimisticLikes(feed, headConfessions);
+        addWithOptimisticLikes(feed, olderConfessions);
+        confessions.setValue(feed);
+    }
+
+    private void publishTrending() {
+        List<Confession> trending = new ArrayList<>(topConfessions.size());
+        addWithOptimisticLikes(trending, topConfessions);
+        trendingConfessions.setValue(trending);
+    }
+
+    // Show pending likes on top of the rolled-up count; drop them once the server count has caught up
+    private void addWithOptimisticLikes(List<Confession> feed, List<Confession> source) {
+        for (Confession confession : source) {
+            Integer optimistic = optimisticLikeCounts.get(confession.getConfessionId());
+            if (optimistic == null) {
+                feed.add(confession);
+            } else if (confession.getLikeCount() >= optimistic) {
+                optimisticLikeCounts.remove(confession.getConfessionId());
+                feed.add(confession);
+            } else {
+                feed.add(withLikeCount(confession, optimistic));
+            }
+        }
+    }
+
+    private Confession withLikeCount(Confession confession, int likeCount) {
+        Confession copy = new Confession(confession.getContent(),
+                confession.getConfessorPersonaId(), confession.getConfessorDisplayName());
+        copy.setConfessionId(confession.getConfessionId());
+        copy.setTimestamp(confession.getTimestamp());
+        copy.setReplyCount(confession.getReplyCount());
+        copy.setAnonymous(confession.isAnonymous());
+        copy.setMoodTag(confession.getMoodTag());
+        copy.setLikeCount(likeCount);
+        copy.setHotScore(confession.getHotScore());
+        return copy;
+    }
+
     // Reply to confession (starts private chat)
     public void replyToConfession(String confessionId, String initialMessage) {
         String userId = getCurrentUserId();
@@ -94,6 +266,8 @@ public class ConfessionRepository {
                         if (confession != null) {
                             // Create a private chat between users
                             createPrivateChat(confession.getConfessorPersonaId(), initialMessage);
+                            incrementShard(confessionId, "reply_shards")
+                                    .addOnFailureListener(e -> Log.e(TAG, "Failed to count reply", e));
                         }
                     }
                 });
@@ -105,15 +279,54 @@ public class ConfessionRepository {
         Log.d(TAG, "Creating private chat with confessor");
     }
 
-    // Like a confession
+    // Like a confession: bump one random counter shard and show the new count straight away.
+    // The client never writes the confession itself; the rollUpConfessionCounts function sums
+    // the like and reply shards into likeCount, replyCount and hotScore, at most once a minute per confession.
     public void likeConfession(String confessionId) {
-        firestore.collection("confessions").document(confessionId)
-                .update("likeCount", FieldValue.increment(1))
+        Confession confession = findConfession(confessionId);
+        int current = confession != null ? confession.getLikeCount() : 0;
+        Integer optimistic = optimisticLikeCounts.get(confessionId);
+        optimisticLikeCounts.put(confessionId, Math.max(current, optimistic != null ? optimistic : 0) + 1);
+        publishConfessions();
+        publishTrending();
+
+        incrementShard(confessionId, "like_shards")
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Failed to like confession", e);
+                    Integer expected = optimisticLikeCounts.get(confessionId);
+                    if (expected != null) {
+                        optimisticLikeCounts.put(confessionId, expected - 1);
+                    }
+                    publishConfessions();
+                    publishTrending();
+                    errorMessage.setValue("Failed to like confession");
                 });
     }
 
+    // Add one to a random counter shard in the confession's like_shards or reply_shards
+    private Task<Void> incrementShard(String confessionId, String shards) {
+        Map<String, Object> increment = new HashMap<>();
+        increment.put("count", FieldValue.increment(1));
+        // Lets the rollup find the confessions whose shards changed since its last run
+        increment.put("updatedAt", FieldValue.serverTimestamp());
+        return firestore.collection("confessions").document(confessionId).collection(shards)
+                .document(String.valueOf(shardPicker.nextInt(COUNTER_SHARD_COUNT)))
+                .set(increment, SetOptions.merge());
+    }
+
+    private Confession findConfession(String confessionId) {
+        for (Confession confession : headConfessions) {
+            if (confessionId.equals(confession.getConfessionId())) return confession;
+        }
+        for (Confession confession : olderConfessions) {
+            if (confessionId.equals(confession.getConfessionId())) return confession;
+        }
+        for (Confession confession : topConfessions) {
+            if (confessionId.equals(confession.getConfessionId())) return confession;
+        }
+        return null;
+    }
+
     private String getCurrentUserId() {
         return firebaseAuth.getCurrentUser() != null ? firebaseAuth.getCurrentUser().getUid() : null;
     }
@@ -121,4 +334,17 @@ public class ConfessionRepository {
     // LiveData Getters
     public MutableLiveData<List<Confession>> getConfessions() { return confessions; }
     public MutableLiveData<String> getErrorMessage() { return errorMessage; }
+    public MutableLiveData<Boolean> getHasMoreConfessions() { return hasMoreConfessions; }
+    public MutableLiveData<List<Confession>> getTrendingConfessions() { return trendingConfessions; }
+
+    public void cleanup() {
+        if (headListener != null) {
+            headListener.remove();
+            headListener = null;
+        }
+        if (trendingListener != null) {
+            trendingListener.remove();
+            trendingListener = null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.m3.veilchat.repositories;
+
+import android.util.Log;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.List;
+
+/**
+ * One-shot expiry pass for rooms and messages whose expiresAt has passed.
+ * In production expiry is handled by Firestore TTL policies on the deleteAt field
+ * (see firestore.indexes.json); this sweeper covers environments without TTL, such as
+ * the local emulator, and deletes the same documents the policies would, so code and tests
+ * see the same end state either way. It only ever touches documents that have already expired.
+ * It is meant to run from a single place, never from every client.
+ *
+ * Expired documents are read a page at a time and written back as one WriteBatch per page,
+ * so a sweep costs one round trip per 500 documents and never holds more than a page in memory.
+ */
+public class ExpirySweeper {
+    private static final String TAG = "ExpirySweeper";
+
+    // Firestore's limit on operations in a single WriteBatch
+    static final int BATCH_SIZE = 500;
+
+    private final FirebaseFirestore firestore;
+
+    // Applies the expiry write for one document to a batch
+    private interface ExpiryWrite {
+        void apply(WriteBatch batch, DocumentReference document);
+    }
+
+    public ExpirySweeper(FirebaseFirestore firestore) {
+        this.firestore = firestore;
+    }
+
+    // Delete expired rooms and messages; completes once every batch has committed
+    public Task<Void> sweep() {
+        long now = System.currentTimeMillis();
+        return Tasks.whenAll(deleteExpiredRooms(now), deleteExpiredMessages(now));
+    }
+
+    private Task<Integer> deleteExpiredRooms(long now) {
+        // expiresAt of 0 means the room never expires
+        Query expiredRooms = firestore.collection("chat_rooms")
+                .whereGreaterThan("expiresAt", 0)
+                .whereLessThan("expiresAt", now)
+                .orderBy("expiresAt");
+
+        return sweepPages(expiredRooms, null, 0, WriteBatch::delete)
+                .addOnSuccessListener(count -> Log.d(TAG, "Deleted " + count + " expired rooms"));
+    }
+
+    private Task<Integer> deleteExpiredMessages(long now) {
+        // expiresAt of 0 means the message never expires
+        Query expiredMessages = firestore.collection("messages")
+                .whereGreaterThan("expiresAt", 0)
+                .whereLessThan("expiresAt", now)
+                .orderBy("expiresAt");
+
+        return sweepPages(expiredMessages, null, 0, WriteBatch::delete)
+                .addOnSuccessListener(count -> Log.d(TAG, "Deleted " + count + " expired messages"));
+    }
+
+    // Read one page after the cursor, commit its writes as a single batch, then move on to the next page
+    private Task<Integer> sweepPages(Query query, DocumentSnapshot cursor, int swept, ExpiryWrite write) {
+        Query page = cursor != null ? query.startAfter(cursor) : query;
+
+        return page.limit(BATCH_SIZE).get().continueWithTask(task -> {
+            QuerySnapshot snapshot = task.getResult();
+            List<DocumentSnapshot> documents = snapshot.getDocuments();
+            if (documents.isEmpty()) {
+                return Tasks.forResult(swept);
+            }
+
+            WriteBatch batch = firestore.batch();
+            for (DocumentSnapshot document : documents) {
+                write.apply(batch, document.getReference());
+            }
+
+            int total = swept + documents.size();
+            DocumentSnapshot last = documents.get(documents.size() - 1);
+            return batch.commit().continueWithTask(commit -> {
+                if (!commit.isSuccessful()) {
+                    return Tasks.forException(commit.getException());
+                }
+                if (documents.size() < BATCH_SIZE) {
+                    return Tasks.forResult(total);
+                }
+                return sweepPages(query, last, total, write);
+            });
+        });
+    }
+}
@@ -0,0 +1,388 @@
+package com.m3.veilchat.repositories;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+import com.google.gson.Gson;
+import com.m3.veilchat.models.ChatRoom;
+import com.m3.veilchat.models.Message;
+import com.m3.veilchat.utils.SecurePrefsManager;
+import net.sqlcipher.database.SQLiteDatabase;
+import net.sqlcipher.database.SQLiteException;
+import net.sqlcipher.database.SQLiteOpenHelper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * On-device cache of rooms and messages in a SQLCipher database, so screens can render
+ * from disk before Firestore answers. Messages are stored already decrypted, keyed by
+ * room and timestamp; the database itself is encrypted with a random passphrase kept in
+ * secure prefs. A full-text index over the decrypted content lives in the same encrypted
+ * database and is updated with every write, so search never touches Firestore or the
+ * decryptor. Blink messages are never stored. Other decrypted content is stored twice, in
+ * the messages table and in the search index, and while the database is open SQLCipher's
+ * page cache holds it in plaintext; {@link #close()} purges expired rows and drops that
+ * cache when the app locks. All methods block on disk I/O and must be called off the main
+ * thread, either on the caller's own background thread or on {@link #getExecutor()}.
+ */
+public class LocalMessageStore {
+    private static final String TAG = "LocalMessageStore";
+    private static final String DATABASE_NAME = "veil_messages.db";
+    private static final int DATABASE_VERSION = 3;
+
+    private static LocalMessageStore instance;
+
+    private final Context context;
+    private final SecurePrefsManager securePrefsManager;
+    private final Gson gson = new Gson();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private OpenHelper openHelper;
+    private SQLiteDatabase database;
+    // Held shared by every read and write, and exclusively by close()
+    private final ReadWriteLock openLock = new ReentrantReadWriteLock();
+
+    private static class OpenHelper extends SQLiteOpenHelper {
+        OpenHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE messages ("
+                    + "message_id TEXT PRIMARY KEY, "
+                    + "room_id TEXT NOT NULL, "
+                    + "timestamp INTEGER NOT NULL, "
+                    + "expires_at INTEGER NOT NULL, "
+                    + "json TEXT NOT NULL)");
+            db.execSQL("CREATE INDEX messages_room_timestamp ON messages (room_id, timestamp)");
+            // Each index row's docid is the rowid of its messages row; FTS4 only looks rows up
+            // by docid, any other column means a scan of the whole index
+            db.execSQL("CREATE VIRTUAL TABLE message_search USING fts4(content, tokenize=unicode61)");
+
+            db.execSQL("CREATE TABLE rooms ("
+                    + "room_id TEXT PRIMARY KEY, "
+                    + "json TEXT NOT NULL)");
+            // Ordered membership of the cached room lists, keyed e.g. by user_rooms/<userId>
+            db.execSQL("CREATE TABLE room_lists ("
+                    + "list_key TEXT NOT NULL, "
+                    + "position INTEGER NOT NULL, "
+                    + "room_id TEXT NOT NULL, "
+                    + "PRIMARY KEY (list_key, position))");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Everything here can be refetched from Firestore
+            db.execSQL("DROP TABLE IF EXISTS messages");
+            db.execSQL("DROP TABLE IF EXISTS message_search");
+            db.execSQL("DROP TABLE IF EXISTS rooms");
+            db.execSQL("DROP TABLE IF EXISTS room_lists");
+            onCreate(db);
+        }
+    }
+
+    private LocalMessageStore(Context context) {
+        this.context = context;
+        securePrefsManager = SecurePrefsManager.getInstance(context);
+    }
+
+    public static synchronized LocalMessageStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalMessageStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Background thread for callers that are on the main thread
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    // Newest messages of a room that haven't expired, oldest first
+    public List<Message> getRecentMessages(String roomId, int limit) {
+        openLock.readLock().lock();
+        try {
+            List<Message> messages = new ArrayList<>();
+            Cursor cursor = db().rawQuery(
+                    "SELECT json FROM messages WHERE room_id = ? AND (expires_at = 0 OR expires_at > ?) "
+                            + "ORDER BY timestamp DESC LIMIT ?",
+                    new String[]{roomId, String.valueOf(System.currentTimeMillis()), String.valueOf(limit)});
+            try {
+                while (cursor.moveToNext()) {
+                    messages.add(toMessage(cursor.getString(0)));
+                }
+            } finally {
+                cursor.close();
+            }
+            Collections.reverse(messages);
+            return messages;
+        } finally {
+            openLock.readLock().unlock();
+        }
+    }
+
+    public void putMessages(List<Message> messages) {
+        openLock.readLock().lock();
+        try {
+            if (messages.isEmpty()) return;
+            SQLiteDatabase db = db();
+            db.beginTransaction();
+            try {
+                for (Message message : messages) {
+                    if (message.getMessageId() == null) continue;
+                    // Blink messages are meant to vanish, so their plaintext never goes to disk
+                    if (message.isBlinkMessage()) {
+                        unindexMessage(db, message.getMessageId());
+                        db.delete("messages", "message_id = ?", new String[]{message.getMessageId()});
+                        continue;
+                    }
+                    ContentValues values = new ContentValues();
+                    values.put("message_id", message.getMessageId());
+                    values.put("room_id", message.getRoomId());
+                    values.put("timestamp", message.getTimestamp());
+                    values.put("expires_at", message.getExpiresAt());
+                    values.put("json", gson.toJson(message));
+                    // REPLACE gives the row a new rowid, so the old index row goes first
+                    unindexMessage(db, message.getMessageId());
+                    long rowId = db.insertWithOnConflict("messages", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                    indexMessage(db, rowId, message);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            openLock.readLock().unlock();
+        }
+    }
+
+    public void deleteMessages(List<String> messageIds) {
+        openLock.readLock().lock();
+        try {
+            if (messageIds.isEmpty()) return;
+            SQLiteDatabase db = db();
+            db.beginTransaction();
+            try {
+                for (String messageId : messageIds) {
+                    unindexMessage(db, messageId);
+                    db.delete("messages", "message_id = ?", new String[]{messageId});
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            openLock.readLock().unlock();
+        }
+    }
+
+    public void deleteExpiredMessages() {
+        openLock.readLock().lock();
+        try {
+            SQLiteDatabase db = db();
+            String[] now = {String.valueOf(System.currentTimeMillis())};
+            db.beginTransaction();
+            try {
+                Cursor cursor = db.rawQuery("SELECT rowid FROM messages WHERE expires_at > 0 AND expires_at <= ?", now);
+                try {
+                    while (cursor.moveToNext()) {
+                        db.delete("message_search", "docid = ?", new String[]{cursor.getString(0)});
+                    }
+                } finally {
+                    cursor.close();
+                }
+                db.delete("messages", "expires_at > 0 AND expires_at <= ?", now);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            openLock.readLock().unlock();
+        }
+    }
+
+    // Messages whose decrypted content matches every word of the query as a prefix, newest first
+    public List<Message> searchMessages(String query, int limit) {
+        openLock.readLock().lock();
+        try {
+            List<Message> messages = new ArrayList<>();
+            String match = toMatchExpression(query);
+            if (match.isEmpty()) return messages;
+
+            Cursor cursor = db().rawQuery(
+                    "SELECT messages.json FROM message_search "
+                            + "JOIN messages ON messages.rowid = message_search.docid "
+                            + "WHERE message_search MATCH ? AND (messages.expires_at = 0 OR messages.expires_at > ?) "
+                            + "ORDER BY messages.timestamp DESC LIMIT ?",
+                    new String[]{match, String.valueOf(System.currentTimeMillis()), String.valueOf(limit)});
+            try {
+                while (cursor.moveToNext()) {
+                    messages.add(toMessage(cursor.getString(0)));
+                }
+            } finally {
+                cursor.close();
+            }
+            return messages;
+        } finally {
+            openLock.readLock().unlock();
+        }
+    }
+
+    // Index the message under its messages rowid; system messages and blank content aren't searchable
+    private void indexMessage(SQLiteDatabase db, long rowId, Message message) {
+        if (rowId == -1 || message.isSystemMessage()
+                || message.getContent() == null || message.getContent().trim().isEmpty()) {
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put("docid", rowId);
+        values.put("content", message.getContent());
+        db.insert("message_search", null, values);
+    }
+
+    // Drop the index row of a stored message, found by docid through its messages row
+    private void unindexMessage(SQLiteDatabase db, String messageId) {
+        Cursor cursor = db.rawQuery("SELECT rowid FROM messages WHERE message_id = ?", new String[]{messageId});
+        try {
+            if (cursor.moveToFirst()) {
+                db.delete("message_search", "docid = ?", new String[]{cursor.getString(0)});
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // "hello wor" -> "content:hello* content:wor*"; FTS syntax characters in the input are dropped
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.toLowerCase().split("\\s+")) {
+            StringBuilder token = new StringBuilder(word.length());
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    token.append(c);
+                }
+            }
+            if (token.length() == 0) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append("content:").append(token).append('*');
+        }
+        return match.toString();
+    }
+
+    // Rooms of a cached list, in the order they were last listed
+    public List<ChatRoom> getRoomList(String listKey) {
+        openLock.readLock().lock();
+        try {
+            List<ChatRoom> rooms = new ArrayList<>();
+            Cursor cursor = db().rawQuery(
+                    "SELECT rooms.json FROM room_lists JOIN rooms ON rooms.room_id = room_lists.room_id "
+                            + "WHERE room_lists.list_key = ? ORDER BY room_lists.position",
+                    new String[]{listKey});
+            try {
+                while (cursor.moveToNext()) {
+                    ChatRoom room = gson.fromJson(cursor.getString(0), ChatRoom.class);
+                    room.setExpiresAt(room.getExpiresAt());
+                    rooms.add(room);
+                }
+            } finally {
+                cursor.close();
+            }
+            return rooms;
+        } finally {
+            openLock.readLock().unlock();
+        }
+    }
+
+    public void putRoomList(String listKey, List<ChatRoom> rooms) {
+        openLock.readLock().lock();
+        try {
+            SQLiteDatabase db = db();
+            db.beginTransaction();
+            try {
+                db.delete("room_lists", "list_key = ?", new String[]{listKey});
+                for (int i = 0; i < rooms.size(); i++) {
+                    ChatRoom room = rooms.get(i);
+                    ContentValues roomValues = new ContentValues();
+                    roomValues.put("room_id", room.getRoomId());
+                    roomValues.put("json", gson.toJson(room));
+                    db.insertWithOnConflict("rooms", null, roomValues, SQLiteDatabase.CONFLICT_REPLACE);
+
+                    ContentValues listValues = new ContentValues();
+                    listValues.put("list_key", listKey);
+                    listValues.put("position", i);
+                    listValues.put("room_id", room.getRoomId());
+                    db.insert("room_lists", null, listValues);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            openLock.readLock().unlock();
+        }
+    }
+
+    // Purge expired messages and close the database so no decrypted pages stay in memory; the
+    // next call reopens it. Callers use the store from several threads, so this waits for every
+    // read and write in progress to finish; it runs on the executor so the main thread never waits.
+    public void close() {
+        executor.execute(() -> {
+            openLock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    if (database != null) {
+                        // Otherwise expired rows stay on disk until their room is opened again
+                        deleteExpiredMessages();
+                        database.close();
+                        database = null;
+                    }
+                }
+            } finally {
+                openLock.writeLock().unlock();
+            }
+        });
+    }
+
+    private Message toMessage(String json) {
+        Message message = gson.fromJson(json, Message.class);
+        // Gson stores dates to the second; re-derive the TTL field from expiresAt
+        message.setExpiresAt(message.getExpiresAt());
+        return message;
+    }
+
+    // Package-private so instrumented tests can inspect the search index directly
+    synchronized SQLiteDatabase db() {
+        if (database == null) {
+            SQLiteDatabase.loadLibs(context);
+            openHelper = new OpenHelper(context);
+            String passphrase = securePrefsManager.getLocalStorePassphrase();
+            try {
+                database = openHelper.getWritableDatabase(passphrase);
+            } catch (SQLiteException e) {
+                if (!isWrongPassphrase(e)) {
+                    // Disk full, locked, I/O errors: the cache may be fine, so don't throw it away
+                    Log.e(TAG, "Local store could not be opened", e);
+                    throw e;
+                }
+                // The passphrase was wiped with the rest of the secure data; the cache is unreadable
+                Log.w(TAG, "Local store key doesn't match, recreating it", e);
+                context.deleteDatabase(DATABASE_NAME);
+                database = openHelper.getWritableDatabase(passphrase);
+            }
+        }
+        return database;
+    }
+
+    // SQLCipher reports a wrong key as SQLITE_NOTADB when it reads the first page
+    private static boolean isWrongPassphrase(SQLiteException e) {
+        String message = e.getMessage();
+        return message != null && message.contains("file is not a database");
+    }
+}
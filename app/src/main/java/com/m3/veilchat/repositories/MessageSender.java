@@ -0,0 +1,69 @@
+package com.m3.veilchat.repositories;
+
+import android.util.Log;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.m3.veilchat.models.Message;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Outgoing message writes.
+ * Messages carry a client-generated id and are written with set(), so a write can never
+ * duplicate a message. Firestore keeps the write in its local cache until the server accepts
+ * it, retrying on its own while offline and across process restarts, and room listeners see
+ * it immediately with pending writes. Nothing is persisted here; this class only reports
+ * writes the server rejected, and tells RoomActivityWriter about delivered ones so the rooms'
+ * lastActivity updates are coalesced.
+ */
+public class MessageSender {
+    private static final String TAG = "MessageSender";
+
+    private static MessageSender instance;
+
+    public interface Listener {
+        // The message was rejected by the server and will not be retried
+        void onMessageFailed(Message message);
+    }
+
+    private final FirebaseFirestore firestore;
+    private final RoomActivityWriter roomActivityWriter;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private MessageSender() {
+        firestore = FirebaseFirestore.getInstance();
+        roomActivityWriter = RoomActivityWriter.getInstance();
+    }
+
+    public static synchronized MessageSender getInstance() {
+        if (instance == null) {
+            instance = new MessageSender();
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Write a message whose id is already assigned and whose content is already encrypted
+    public void send(Message message) {
+        String messageId = message.getMessageId();
+        // Completes when the server acknowledges the write; while offline it simply stays pending
+        firestore.collection("messages").document(messageId)
+                .set(message)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Message sent with ID: " + messageId);
+                    roomActivityWriter.recordActivity(message.getRoomId(), System.currentTimeMillis());
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Message rejected, dropping " + messageId, e);
+                    for (Listener listener : listeners) {
+                        listener.onMessageFailed(message);
+                    }
+                });
+    }
+}
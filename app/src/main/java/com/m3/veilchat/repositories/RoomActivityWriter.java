@@ -0,0 +1,77 @@
+package com.m3.veilchat.repositories;
+
+import android.util.Log;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces chat_rooms/{roomId}.lastActivity updates.
+ * The first activity in a room opens a window; activity inside the window only moves the
+ * timestamp forward, and a single write lands when the window closes. Leaving a room flushes
+ * its pending update right away.
+ */
+public class RoomActivityWriter {
+    private static final String TAG = "RoomActivityWriter";
+    static final long DEFAULT_WINDOW_MS = 15000;
+
+    private static RoomActivityWriter instance;
+
+    private final FirebaseFirestore firestore;
+    private final long windowMs;
+
+    // Pending state per room, confined to the executor
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final Map<String, Long> pendingActivity = new HashMap<>();
+    private final Map<String, ScheduledFuture<?>> scheduledWrites = new HashMap<>();
+
+    RoomActivityWriter(FirebaseFirestore firestore, long windowMs) {
+        this.firestore = firestore;
+        this.windowMs = windowMs;
+    }
+
+    public static synchronized RoomActivityWriter getInstance() {
+        if (instance == null) {
+            instance = new RoomActivityWriter(FirebaseFirestore.getInstance(), DEFAULT_WINDOW_MS);
+        }
+        return instance;
+    }
+
+    // Record activity in a room; written at most once per window
+    public void recordActivity(String roomId, long timestamp) {
+        executor.execute(() -> {
+            Long previous = pendingActivity.get(roomId);
+            if (previous == null || timestamp > previous) {
+                pendingActivity.put(roomId, timestamp);
+            }
+            if (!scheduledWrites.containsKey(roomId)) {
+                scheduledWrites.put(roomId, executor.schedule(() -> write(roomId), windowMs, TimeUnit.MILLISECONDS));
+            }
+        });
+    }
+
+    // Write any pending activity for the room now, e.g. when the user leaves it
+    public void flush(String roomId) {
+        executor.execute(() -> {
+            ScheduledFuture<?> scheduled = scheduledWrites.get(roomId);
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            write(roomId);
+        });
+    }
+
+    private void write(String roomId) {
+        scheduledWrites.remove(roomId);
+        Long lastActivity = pendingActivity.remove(roomId);
+        if (lastActivity == null) return;
+
+        firestore.collection("chat_rooms").document(roomId)
+                .update("lastActivity", lastActivity)
+                .addOnFailureListener(e -> Log.e(TAG, "Error updating room activity", e));
+    }
+}
@@ -0,0 +1,80 @@
+package com.m3.veilchat.repositories;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import com.google.firebase.firestore.ListenerRegistration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ref-counted snapshot listeners keyed by query.
+ * The first lifecycle owner to acquire a key starts its listener; later owners share it.
+ * Each owner is released when its lifecycle is destroyed, and the listener is removed
+ * once no owner holds it any more. Must be used from the main thread.
+ */
+class SharedListeners {
+
+    interface ListenerFactory {
+        ListenerRegistration start();
+    }
+
+    private static class Entry {
+        final ListenerRegistration registration;
+        final Set<LifecycleOwner> owners = new HashSet<>();
+
+        Entry(ListenerRegistration registration) {
+            this.registration = registration;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // Hold the listener for key on behalf of owner, starting it if nobody else does
+    void acquire(LifecycleOwner owner, String key, ListenerFactory factory) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return;
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(factory.start());
+            entries.put(key, entry);
+        }
+        if (!entry.owners.add(owner)) return;
+
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                source.getLifecycle().removeObserver(this);
+                release(source, key);
+            }
+        });
+    }
+
+    // Remove the listener for key regardless of who holds it
+    void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.registration.remove();
+        }
+    }
+
+    // Remove every listener regardless of who holds it
+    void removeAll() {
+        for (Entry entry : entries.values()) {
+            entry.registration.remove();
+        }
+        entries.clear();
+    }
+
+    private void release(LifecycleOwner owner, String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.owners.remove(owner)) return;
+        if (entry.owners.isEmpty()) {
+            entry.registration.remove();
+            entries.remove(key);
+        }
+    }
+}
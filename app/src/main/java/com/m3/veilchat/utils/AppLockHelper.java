@@ -11,7 +11,7 @@ public class AppLockHelper {
 
     public AppLockHelper(Context context) {
         this.context = context;
-        this.securePrefsManager = new SecurePrefsManager(context);
+        this.securePrefsManager = SecurePrefsManager.getInstance(context);
     }
 
     public void checkAppLock(Activity activity) {
@@ -0,0 +1,129 @@
+package com.m3.veilchat.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StealthTalk codec between Base64 text and its emoji representation.
+ * Both directions are a single pass over pre-built lookup tables: encoding indexes
+ * by char, decoding indexes by emoji codepoint, so no per-character Strings are created.
+ * The decoder tolerates a missing or extra variation selector (U+FE0F) after an emoji.
+ */
+public final class EmojiCipherCodec {
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    private static final char VARIATION_SELECTOR = '\uFE0F';
+
+    // Emoji cipher mapping, one emoji per ALPHABET character
+    static final String[] EMOJIS = {
+            "😀", "😃", "😄", "😁", "😆", "😅", "😂", "🤣", "😊", "😇", "🙂", "🙃", "😉", "😌", "😍", "🥰",
+            "😘", "😗", "😙", "😚", "😋", "😛", "😝", "😜", "🤪", "🤨", "🧐", "🤓", "😎", "🤩", "🥳", "😏",
+            "😒", "😞", "😔", "😟", "😕", "🙁", "☹️", "😣", "😖", "😫", "😩", "🥺", "😢", "😭", "😤", "😠",
+            "😡", "🤬", "🤯", "😳", "🥵", "🥶", "😱", "😨", "😰", "😥", "😓", "🤗", "🤔", "🤭", "🤫", "🤥"
+    };
+
+    // Alphabet char -> emoji chars
+    private static final char[][] ENCODE_TABLE = new char[128][];
+
+    // Emoji base codepoint -> alphabet char (0 when unmapped), one dense table per plane
+    private static final int BMP_BASE;
+    private static final char[] BMP_DECODE_TABLE;
+    private static final int SUPPLEMENTARY_BASE;
+    private static final char[] SUPPLEMENTARY_DECODE_TABLE;
+
+    static {
+        List<Integer> bmpIndexes = new ArrayList<>();
+        List<Integer> supplementaryIndexes = new ArrayList<>();
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            ENCODE_TABLE[ALPHABET.charAt(i)] = EMOJIS[i].toCharArray();
+            if (Character.isSupplementaryCodePoint(EMOJIS[i].codePointAt(0))) {
+                supplementaryIndexes.add(i);
+            } else {
+                bmpIndexes.add(i);
+            }
+        }
+
+        BMP_BASE = minCodePoint(bmpIndexes);
+        BMP_DECODE_TABLE = buildDecodeTable(bmpIndexes, BMP_BASE);
+        SUPPLEMENTARY_BASE = minCodePoint(supplementaryIndexes);
+        SUPPLEMENTARY_DECODE_TABLE = buildDecodeTable(supplementaryIndexes, SUPPLEMENTARY_BASE);
+    }
+
+    private EmojiCipherCodec() {}
+
+    // Convert text to emoji representation; characters outside the alphabet are kept as-is
+    public static String encode(String text) {
+        int length = text.length();
+        StringBuilder emojiBuilder = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            char[] emoji = c < ENCODE_TABLE.length ? ENCODE_TABLE[c] : null;
+            if (emoji != null) {
+                emojiBuilder.append(emoji);
+            } else {
+                emojiBuilder.append(c);
+            }
+        }
+        return emojiBuilder.toString();
+    }
+
+    // Convert emoji back to text; unknown codepoints are kept as-is
+    public static String decode(String emojiText) {
+        int length = emojiText.length();
+        // Every emoji is at least one char and decodes to exactly one
+        char[] text = new char[length];
+        int count = 0;
+
+        int i = 0;
+        while (i < length) {
+            int codePoint = emojiText.codePointAt(i);
+            int width = Character.charCount(codePoint);
+            char decoded = lookup(codePoint);
+
+            if (decoded != 0) {
+                text[count++] = decoded;
+                i += width;
+                if (i < length && emojiText.charAt(i) == VARIATION_SELECTOR) {
+                    i++;
+                }
+            } else {
+                for (int end = i + width; i < end; i++) {
+                    text[count++] = emojiText.charAt(i);
+                }
+            }
+        }
+        return new String(text, 0, count);
+    }
+
+    private static char lookup(int codePoint) {
+        char[] table;
+        int offset;
+        if (Character.isSupplementaryCodePoint(codePoint)) {
+            table = SUPPLEMENTARY_DECODE_TABLE;
+            offset = codePoint - SUPPLEMENTARY_BASE;
+        } else {
+            table = BMP_DECODE_TABLE;
+            offset = codePoint - BMP_BASE;
+        }
+        return offset >= 0 && offset < table.length ? table[offset] : 0;
+    }
+
+    private static int minCodePoint(List<Integer> indexes) {
+        int min = Integer.MAX_VALUE;
+        for (int index : indexes) {
+            min = Math.min(min, EMOJIS[index].codePointAt(0));
+        }
+        return indexes.isEmpty() ? 0 : min;
+    }
+
+    private static char[] buildDecodeTable(List<Integer> indexes, int base) {
+        int max = base - 1;
+        for (int index : indexes) {
+            max = Math.max(max, EMOJIS[index].codePointAt(0));
+        }
+        char[] table = new char[max - base + 1];
+        for (int index : indexes) {
+            table[EMOJIS[index].codePointAt(0) - base] = ALPHABET.charAt(index);
+        }
+        return table;
+    }
+}
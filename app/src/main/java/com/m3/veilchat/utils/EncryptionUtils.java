@@ -7,9 +7,12 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import javax.crypto.spec.IvParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.security.MessageDigest;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class EncryptionUtils {
@@ -17,33 +20,26 @@ public class EncryptionUtils {
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
     private static final int KEY_SIZE = 256;
-
-    // Emoji cipher mapping for StealthTalk feature
-    private static final String[] EMOJIS = {
-            "😀", "😃", "😄", "😁", "😆", "😅", "😂", "🤣", "😊", "😇", "🙂", "🙃", "😉", "😌", "😍", "🥰",
-            "😘", "😗", "😙", "😚", "😋", "😛", "😝", "😜", "🤪", "🤨", "🧐", "🤓", "😎", "🤩", "🥳", "😏",
-            "😒", "😞", "😔", "😟", "😕", "🙁", "☹️", "😣", "😖", "😫", "😩", "🥺", "😢", "😭", "😤", "😠",
-            "😡", "🤬", "🤯", "😳", "🥵", "🥶", "😱", "😨", "😰", "😥", "😓", "🤗", "🤔", "🤭", "🤫", "🤥"
-    };
-
-    private static Map<String, String> emojiMap = new HashMap<>();
-    private static Map<String, String> reverseEmojiMap = new HashMap<>();
-
-    static {
-        // Initialize emoji mapping for cipher messages
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
-        for (int i = 0; i < characters.length(); i++) {
-            if (i < EMOJIS.length) {
-                emojiMap.put(String.valueOf(characters.charAt(i)), EMOJIS[i]);
-                reverseEmojiMap.put(EMOJIS[i], String.valueOf(characters.charAt(i)));
-            }
-        }
-    }
+    private static final int DERIVED_KEY_CACHE_SIZE = 64;
+
+    // Provider lookups are expensive, so each thread keeps its own reusable instances
+    private static final ThreadLocal<Cipher> CIPHER = new ThreadLocal<>();
+    private static final ThreadLocal<MessageDigest> SHA256 = new ThreadLocal<>();
+    private static final ThreadLocal<SecureRandom> RANDOM = new ThreadLocal<>();
+
+    // AES keys derived from StealthTalk cipher keys, most recently used last
+    private static final Map<String, SecretKey> derivedKeys = Collections.synchronizedMap(
+            new LinkedHashMap<String, SecretKey>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SecretKey> eldest) {
+                    return size() > DERIVED_KEY_CACHE_SIZE;
+                }
+            });
 
     // Generate AES secret key
     public static SecretKey generateKey() throws Exception {
         KeyGenerator keyGenerator = KeyGenerator.getInstance(ALGORITHM);
-        keyGenerator.init(KEY_SIZE, new SecureRandom());
+        keyGenerator.init(KEY_SIZE, secureRandom());
         return keyGenerator.generateKey();
     }
 
@@ -60,15 +56,15 @@ public class EncryptionUtils {
 
     // Encrypt text with secret key
     public static String encrypt(String plainText, SecretKey secretKey) throws Exception {
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        Cipher cipher = aesCipher();
 
         // Generate random IV
         byte[] iv = new byte[16];
-        new SecureRandom().nextBytes(iv);
+        secureRandom().nextBytes(iv);
         IvParameterSpec ivSpec = new IvParameterSpec(iv);
 
         cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivSpec);
-        byte[] encrypted = cipher.doFinal(plainText.getBytes("UTF-8"));
+        byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
 
         // Combine IV and encrypted data
         byte[] combined = new byte[iv.length + encrypted.length];
@@ -82,22 +78,17 @@ public class EncryptionUtils {
     public static String decrypt(String encryptedText, SecretKey secretKey) throws Exception {
         byte[] combined = Base64.decode(encryptedText, Base64.DEFAULT);
 
-        // Extract IV and encrypted data
-        byte[] iv = new byte[16];
-        byte[] encrypted = new byte[combined.length - 16];
-        System.arraycopy(combined, 0, iv, 0, 16);
-        System.arraycopy(combined, 16, encrypted, 0, encrypted.length);
+        // IV is the first 16 bytes, followed by the encrypted data
+        Cipher cipher = aesCipher();
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(combined, 0, 16));
 
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
-
-        byte[] decrypted = cipher.doFinal(encrypted);
-        return new String(decrypted, "UTF-8");
+        byte[] decrypted = cipher.doFinal(combined, 16, combined.length - 16);
+        return new String(decrypted, StandardCharsets.UTF_8);
     }
 
     // Generate cipher key for StealthTalk (emoji-based)
     public static String generateCipherKey() {
-        SecureRandom random = new SecureRandom();
+        SecureRandom random = secureRandom();
         StringBuilder key = new StringBuilder();
         String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
 
@@ -116,7 +107,7 @@ public class EncryptionUtils {
             String encrypted = encrypt(plainText, secretKey);
 
             // Then convert to emoji representation
-            return textToEmoji(encrypted);
+            return EmojiCipherCodec.encode(encrypted);
         } catch (Exception e) {
             Log.e(TAG, "Emoji encryption failed", e);
             return plainText; // Fallback to plain text
@@ -127,7 +118,7 @@ public class EncryptionUtils {
     public static String decryptWithEmojiCipher(String emojiText, String cipherKey) {
         try {
             // Convert from emoji back to base64
-            String base64Text = emojiToText(emojiText);
+            String base64Text = EmojiCipherCodec.decode(emojiText);
 
             // Then decrypt with AES
             SecretKey secretKey = deriveKeyFromCipherKey(cipherKey);
@@ -138,59 +129,50 @@ public class EncryptionUtils {
         }
     }
 
-    // Derive AES key from cipher key
+    // Derive AES key from cipher key, reusing the key from earlier messages in the same room
     private static SecretKey deriveKeyFromCipherKey(String cipherKey) throws Exception {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] keyBytes = digest.digest(cipherKey.getBytes("UTF-8"));
-        return new SecretKeySpec(keyBytes, ALGORITHM);
-    }
-
-    // Convert text to emoji representation
-    private static String textToEmoji(String text) {
-        StringBuilder emojiBuilder = new StringBuilder();
-        for (char c : text.toCharArray()) {
-            String charStr = String.valueOf(c);
-            if (emojiMap.containsKey(charStr)) {
-                emojiBuilder.append(emojiMap.get(charStr));
-            } else {
-                emojiBuilder.append(c); // Keep unknown characters as-is
-            }
+        SecretKey secretKey = derivedKeys.get(cipherKey);
+        if (secretKey == null) {
+            byte[] keyBytes = sha256().digest(cipherKey.getBytes(StandardCharsets.UTF_8));
+            secretKey = new SecretKeySpec(keyBytes, ALGORITHM);
+            derivedKeys.put(cipherKey, secretKey);
         }
-        return emojiBuilder.toString();
-    }
-
-    // Convert emoji back to text
-    private static String emojiToText(String emojiText) {
-        StringBuilder textBuilder = new StringBuilder();
-        // Since emojis might be multiple characters, we need to parse carefully
-        // This is a simplified version - in production you'd need more robust parsing
-        for (int i = 0; i < emojiText.length(); i++) {
-            // Check for 2-character emojis first
-            if (i + 1 < emojiText.length()) {
-                String possibleEmoji = emojiText.substring(i, i + 2);
-                if (reverseEmojiMap.containsKey(possibleEmoji)) {
-                    textBuilder.append(reverseEmojiMap.get(possibleEmoji));
-                    i++; // Skip next character
-                    continue;
-                }
-            }
-
-            // Check single character (though most emojis are 2 chars)
-            String singleChar = emojiText.substring(i, i + 1);
-            if (reverseEmojiMap.containsKey(singleChar)) {
-                textBuilder.append(reverseEmojiMap.get(singleChar));
-            } else {
-                textBuilder.append(singleChar);
-            }
+        return secretKey;
+    }
+
+    private static Cipher aesCipher() throws GeneralSecurityException {
+        Cipher cipher = CIPHER.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            CIPHER.set(cipher);
         }
-        return textBuilder.toString();
+        return cipher;
+    }
+
+    private static MessageDigest sha256() throws GeneralSecurityException {
+        MessageDigest digest = SHA256.get();
+        if (digest == null) {
+            digest = MessageDigest.getInstance("SHA-256");
+            SHA256.set(digest);
+        }
+        // digest() resets the instance, but a previous caller may have failed mid-update
+        digest.reset();
+        return digest;
+    }
+
+    private static SecureRandom secureRandom() {
+        SecureRandom random = RANDOM.get();
+        if (random == null) {
+            random = new SecureRandom();
+            RANDOM.set(random);
+        }
+        return random;
     }
 
     // Hash password for storage
     public static String hashPassword(String password) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(password.getBytes("UTF-8"));
+            byte[] hash = sha256().digest(password.getBytes(StandardCharsets.UTF_8));
             return Base64.encodeToString(hash, Base64.DEFAULT);
         } catch (Exception e) {
             Log.e(TAG, "Password hashing failed", e);
@@ -220,4 +202,9 @@ public class EncryptionUtils {
         // Implementation for key clearing would go here
         // This might involve secure deletion from keystore
     }
+
+    // Forget every cached cipher-derived key, e.g. after the stored keys were wiped
+    public static void clearDerivedKeys() {
+        derivedKeys.clear();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.m3.veilchat.utils;
+
+/**
+ * Time-decayed ranking score for trending confessions.
+ * Engagement counts logarithmically (a reply weighs two likes) and every
+ * {@link #DECAY_SECONDS} of post time adds one point, so a confession needs ten times the
+ * engagement of one posted 12.5 hours later to rank level with it. Decay is expressed as
+ * newer posts starting higher rather than older scores shrinking, so a score only has to be
+ * rewritten when its confession's counts change, never because time passed.
+ * The stored score is written by the rollup in functions/hotScore.js, which must compute the same value.
+ */
+public final class HotScore {
+    static final double DECAY_SECONDS = 45000;
+
+    private HotScore() {}
+
+    public static double of(long likeCount, long replyCount, long createdAtMillis) {
+        double engagement = Math.max(1, likeCount + 2 * replyCount);
+        return Math.log10(engagement) + (createdAtMillis / 1000.0) / DECAY_SECONDS;
+    }
+}
@@ -0,0 +1,95 @@
+package com.m3.veilchat.utils;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+import com.m3.veilchat.models.Message;
+import javax.crypto.SecretKey;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decrypts incoming "cipher" and "encrypted" messages off the main thread.
+ * All work runs on a single background thread, and decrypted content is kept
+ * in a size-bounded cache keyed by message id so a message is only decrypted once.
+ * Entries remember the ciphertext they came from, so an edited message is decrypted again.
+ */
+public class MessageDecryptor {
+    private static final String TAG = "MessageDecryptor";
+    private static final int PLAINTEXT_CACHE_SIZE = 1000;
+
+    private static MessageDecryptor instance;
+
+    private static final class Plaintext {
+        final String ciphertext;
+        final String content;
+
+        Plaintext(String ciphertext, String content) {
+            this.ciphertext = ciphertext;
+            this.content = content;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final LruCache<String, Plaintext> plaintextCache = new LruCache<>(PLAINTEXT_CACHE_SIZE);
+    private final SecurePrefsManager securePrefsManager;
+
+    private MessageDecryptor(Context context) {
+        securePrefsManager = SecurePrefsManager.getInstance(context);
+    }
+
+    public static synchronized MessageDecryptor getInstance(Context context) {
+        if (instance == null) {
+            instance = new MessageDecryptor(context);
+        }
+        return instance;
+    }
+
+    // Executor that snapshot listeners should deliver message documents on
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    // Replace the message's content with its plaintext; must be called on the decryption executor
+    public void decrypt(String roomId, Message message) {
+        if (!message.isCipherMessage() && !"encrypted".equals(message.getRules())) {
+            return;
+        }
+
+        String messageId = message.getMessageId();
+        String encrypted = message.getContent();
+        Plaintext cached = messageId != null ? plaintextCache.get(messageId) : null;
+        if (cached != null && cached.ciphertext.equals(encrypted)) {
+            message.setContent(cached.content);
+            return;
+        }
+
+        String content;
+        try {
+            if (message.isCipherMessage()) {
+                String cipherKey = securePrefsManager.getCipherKey(roomId);
+                if (cipherKey == null) return;
+                content = EncryptionUtils.decryptWithEmojiCipher(encrypted, cipherKey);
+            } else {
+                SecretKey roomKey = securePrefsManager.getRoomKey(roomId);
+                if (roomKey == null) return;
+                content = EncryptionUtils.decrypt(encrypted, roomKey);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Decryption failed for message", e);
+            // Keep encrypted content if decryption fails
+            return;
+        }
+
+        message.setContent(content);
+        // The emoji cipher hands back its input on failure; don't cache that as plaintext
+        if (messageId != null && encrypted != null && !content.equals(encrypted)) {
+            plaintextCache.put(messageId, new Plaintext(encrypted, content));
+        }
+    }
+
+    // Drop all cached plaintext, e.g. when the app is locked
+    public void clearCache() {
+        plaintextCache.evictAll();
+    }
+}
@@ -0,0 +1,139 @@
+package com.m3.veilchat.utils;
+
+import com.m3.veilchat.models.ChatRoom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search-as-you-type filtering of a room list, done entirely on a background thread.
+ * Query changes are debounced; each room's normalized words are cached by room id and only
+ * recomputed when its name or description changes. Results are delivered on the given
+ * executor, and results of a superseded search are dropped.
+ */
+public class RoomSearchEngine {
+
+    public interface Callback {
+        void onResults(List<ChatRoom> rooms);
+    }
+
+    private static class CachedWords {
+        final String name;
+        final String description;
+        final List<String> words;
+
+        CachedWords(String name, String description) {
+            this.name = name;
+            this.description = description;
+            this.words = SearchTokens.words(name, description);
+        }
+
+        boolean matches(ChatRoom room) {
+            return equal(name, room.getName()) && equal(description, room.getDescription());
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private final ScheduledExecutorService worker;
+    private final Executor resultExecutor;
+    private final long debounceMs;
+    private final Callback callback;
+
+    // Search state, confined to the worker
+    private final Map<String, CachedWords> wordCache = new HashMap<>();
+    private List<ChatRoom> rooms = Collections.emptyList();
+    private List<String> queryWords = Collections.emptyList();
+    private ScheduledFuture<?> pendingQuery;
+    // Written on the worker, read when delivering results
+    private volatile int generation;
+
+    public RoomSearchEngine(ScheduledExecutorService worker, Executor resultExecutor, long debounceMs, Callback callback) {
+        this.worker = worker;
+        this.resultExecutor = resultExecutor;
+        this.debounceMs = debounceMs;
+        this.callback = callback;
+    }
+
+    // Replace the rooms being searched and filter them right away with the current query
+    public void setRooms(List<ChatRoom> rooms) {
+        List<ChatRoom> snapshot = new ArrayList<>(rooms);
+        worker.execute(() -> {
+            this.rooms = snapshot;
+            pruneCache();
+            publish();
+        });
+    }
+
+    // Filter with a new query once typing has paused for the debounce delay
+    public void setQuery(String query) {
+        worker.execute(() -> {
+            if (pendingQuery != null) {
+                pendingQuery.cancel(false);
+            }
+            pendingQuery = worker.schedule(() -> {
+                pendingQuery = null;
+                queryWords = SearchTokens.words(query);
+                publish();
+            }, debounceMs, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void publish() {
+        int searchGeneration = ++generation;
+        List<ChatRoom> results = filter();
+        resultExecutor.execute(() -> {
+            if (searchGeneration == generation) {
+                callback.onResults(results);
+            }
+        });
+    }
+
+    private List<ChatRoom> filter() {
+        if (queryWords.isEmpty()) {
+            return rooms;
+        }
+        List<ChatRoom> results = new ArrayList<>();
+        for (ChatRoom room : rooms) {
+            if (SearchTokens.matchesAll(queryWords, wordsOf(room))) {
+                results.add(room);
+            }
+        }
+        return results;
+    }
+
+    private List<String> wordsOf(ChatRoom room) {
+        String key = room.getRoomId();
+        if (key == null) {
+            return SearchTokens.words(room.getName(), room.getDescription());
+        }
+        CachedWords cached = wordCache.get(key);
+        if (cached == null || !cached.matches(room)) {
+            cached = new CachedWords(room.getName(), room.getDescription());
+            wordCache.put(key, cached);
+        }
+        return cached.words;
+    }
+
+    // Forget rooms that are no longer in the list so the cache stays bounded by it
+    private void pruneCache() {
+        if (wordCache.size() <= rooms.size()) return;
+        Map<String, CachedWords> kept = new HashMap<>();
+        for (ChatRoom room : rooms) {
+            CachedWords cached = wordCache.get(room.getRoomId());
+            if (cached != null) {
+                kept.put(room.getRoomId(), cached);
+            }
+        }
+        wordCache.clear();
+        wordCache.putAll(kept);
+    }
+}
@@ -0,0 +1,80 @@
+package com.m3.veilchat.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalization shared by room search on the client and the searchTokens field in Firestore.
+ * Text is lowercased and split on anything that isn't a letter or digit. A room stores every
+ * prefix of its words, so a single array-contains filter answers a prefix search server-side.
+ * functions/scripts/backfillRoomSearchTokens.js repeats words() and prefixes() for rooms created
+ * before the field existed; keep the two in step.
+ */
+public final class SearchTokens {
+    // Longer query words are truncated to this, so long words don't blow up the stored array
+    static final int MAX_PREFIX_LENGTH = 15;
+
+    private SearchTokens() {}
+
+    // Lowercase words of the texts, in order of first appearance, without duplicates
+    public static List<String> words(String... texts) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text == null) continue;
+            String lower = text.toLowerCase(Locale.ROOT);
+            int start = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    words.add(lower.substring(start, i));
+                    start = -1;
+                }
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    // Every prefix of every word, up to MAX_PREFIX_LENGTH characters, for the searchTokens field
+    public static List<String> prefixes(String... texts) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String word : words(texts)) {
+            int max = Math.min(word.length(), MAX_PREFIX_LENGTH);
+            for (int length = 1; length <= max; length++) {
+                prefixes.add(word.substring(0, length));
+            }
+        }
+        return new ArrayList<>(prefixes);
+    }
+
+    // The most selective query word to filter on server-side, or null for an empty query
+    public static String serverToken(List<String> queryWords) {
+        String longest = null;
+        for (String word : queryWords) {
+            if (longest == null || word.length() > longest.length()) {
+                longest = word;
+            }
+        }
+        if (longest == null) return null;
+        return longest.length() > MAX_PREFIX_LENGTH ? longest.substring(0, MAX_PREFIX_LENGTH) : longest;
+    }
+
+    // True when every query word is a prefix of one of the text's words
+    public static boolean matchesAll(List<String> queryWords, List<String> textWords) {
+        for (String queryWord : queryWords) {
+            boolean found = false;
+            for (String textWord : textWords) {
+                if (textWord.startsWith(queryWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+}
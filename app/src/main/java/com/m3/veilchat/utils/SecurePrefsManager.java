@@ -2,25 +2,77 @@ package com.m3.veilchat.utils;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.security.keystore.KeyGenParameterSpec;
 import android.security.keystore.KeyProperties;
 import android.util.Base64;
 import androidx.security.crypto.EncryptedSharedPreferences;
 import androidx.security.crypto.MasterKeys;
+import android.util.Log;
 import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * App-wide secure and regular settings.
+ * Both preference files are opened and decrypted once, on a background thread, into
+ * immutable in-memory snapshots; every getter reads the current snapshot. A write swaps in a
+ * new snapshot straight away and queues the change, and queued changes are flushed to disk
+ * together on the same background thread, so callers never wait on EncryptedSharedPreferences.
+ * Loading starts from VeilChatApplication.onCreate. Reads made before it has finished wait
+ * for it, so screens that can appear that early (splash, app lock) use {@link #whenLoaded}
+ * instead of reading on the main thread straight away.
+ */
 public class SecurePrefsManager {
     private static final String TAG = "SecurePrefsManager";
     private static final String PREFS_NAME = "veil_secure_prefs";
+    // Pending-change marker for a removed key
+    private static final Object REMOVED = new Object();
+
+    private static SecurePrefsManager instance;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
+    // Opened on the writer, only touched there afterwards
     private SharedPreferences secureSharedPreferences;
     private SharedPreferences regularSharedPreferences;
 
-    public SecurePrefsManager(Context context) {
+    private volatile Map<String, Object> secureValues = Collections.emptyMap();
+    private volatile Map<String, Object> regularValues = Collections.emptyMap();
+
+    // Changes not yet flushed to disk, guarded by this
+    private final Map<String, Object> pendingSecure = new HashMap<>();
+    private final Map<String, Object> pendingRegular = new HashMap<>();
+    private boolean flushScheduled;
+    private final Object passphraseLock = new Object();
+
+    private SecurePrefsManager(Context context) {
+        writer.execute(() -> {
+            load(context);
+            loaded.countDown();
+        });
+    }
+
+    public static synchronized SecurePrefsManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new SecurePrefsManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private void load(Context context) {
         try {
             String masterKeyAlias = MasterKeys.getOrCreate(MasterKeys.AES256_GCM_SPEC);
 
@@ -38,62 +90,208 @@ public class SecurePrefsManager {
 
         // Regular prefs for non-sensitive data
         regularSharedPreferences = context.getSharedPreferences("veil_regular_prefs", Context.MODE_PRIVATE);
+
+        secureValues = Collections.unmodifiableMap(new HashMap<String, Object>(secureSharedPreferences.getAll()));
+        regularValues = Collections.unmodifiableMap(new HashMap<String, Object>(regularSharedPreferences.getAll()));
+    }
+
+    // Run callback on the main thread once the settings are loaded, straight away if they are
+    public void whenLoaded(Runnable callback) {
+        if (loaded.getCount() == 0) {
+            callback.run();
+        } else {
+            // The writer runs the initial load first, so this lands after it
+            writer.execute(() -> mainHandler.post(callback));
+        }
+    }
+
+    // Snapshot access
+
+    private Map<String, Object> secure() {
+        awaitLoaded();
+        return secureValues;
+    }
+
+    private Map<String, Object> regular() {
+        awaitLoaded();
+        return regularValues;
+    }
+
+    private void awaitLoaded() {
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T get(Map<String, Object> values, String key, T defValue, Class<T> type) {
+        Object value = values.get(key);
+        return type.isInstance(value) ? type.cast(value) : defValue;
+    }
+
+    private String secureString(String key) {
+        return get(secure(), key, null, String.class);
+    }
+
+    private boolean secureBoolean(String key, boolean defValue) {
+        return get(secure(), key, defValue, Boolean.class);
+    }
+
+    // A null value removes the key, as it does with SharedPreferences.Editor
+    private void putSecure(String key, Object value) {
+        edit(true, Collections.singletonMap(key, value != null ? value : REMOVED));
+    }
+
+    private void putRegular(String key, Object value) {
+        edit(false, Collections.singletonMap(key, value != null ? value : REMOVED));
+    }
+
+    // Every key of the snapshot matching prefix, mapped to REMOVED
+    private static Map<String, Object> removalsOf(Map<String, Object> values, String... prefixes) {
+        Map<String, Object> removals = new HashMap<>();
+        for (String key : values.keySet()) {
+            for (String prefix : prefixes) {
+                if (key.startsWith(prefix)) {
+                    removals.put(key, REMOVED);
+                    break;
+                }
+            }
+        }
+        return removals;
+    }
+
+    // Apply changes to the snapshot now and queue them for the next flush
+    private synchronized void edit(boolean secure, Map<String, Object> changes) {
+        awaitLoaded();
+        Map<String, Object> values = new HashMap<>(secure ? secureValues : regularValues);
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (change.getValue() == REMOVED) {
+                values.remove(change.getKey());
+            } else {
+                values.put(change.getKey(), change.getValue());
+            }
+        }
+        if (secure) {
+            secureValues = Collections.unmodifiableMap(values);
+            pendingSecure.putAll(changes);
+        } else {
+            regularValues = Collections.unmodifiableMap(values);
+            pendingRegular.putAll(changes);
+        }
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.execute(this::flush);
+        }
+    }
+
+    // Write every queued change in one commit per file
+    private void flush() {
+        Map<String, Object> secureChanges;
+        Map<String, Object> regularChanges;
+        synchronized (this) {
+            secureChanges = new HashMap<>(pendingSecure);
+            regularChanges = new HashMap<>(pendingRegular);
+            pendingSecure.clear();
+            pendingRegular.clear();
+            flushScheduled = false;
+        }
+        commit(secureSharedPreferences, secureChanges);
+        commit(regularSharedPreferences, regularChanges);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void commit(SharedPreferences prefs, Map<String, Object> changes) {
+        if (changes.isEmpty()) return;
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            String key = change.getKey();
+            Object value = change.getValue();
+            if (value == REMOVED) {
+                editor.remove(key);
+            } else if (value instanceof String) {
+                editor.putString(key, (String) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            } else if (value instanceof Integer) {
+                editor.putInt(key, (Integer) value);
+            } else if (value instanceof Long) {
+                editor.putLong(key, (Long) value);
+            } else if (value instanceof Float) {
+                editor.putFloat(key, (Float) value);
+            } else if (value instanceof Set) {
+                editor.putStringSet(key, (Set<String>) value);
+            }
+        }
+        if (!editor.commit()) {
+            Log.w(TAG, "Failed to write preferences");
+        }
+    }
+
+    // Block until every change made so far is on disk; not for the main thread
+    private void awaitWrites() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed waiting for preference writes", e);
+        }
     }
 
     // 🔐 App Lock Methods
 
     public void setAppLockRequired(boolean required) {
-        regularSharedPreferences.edit().putBoolean("app_lock_required", required).apply();
+        putRegular("app_lock_required", required);
     }
 
     public boolean isAppLockRequired() {
-        return regularSharedPreferences.getBoolean("app_lock_required", false);
+        return get(regular(), "app_lock_required", false, Boolean.class);
     }
 
 
 
     // Biometric methods
     public void setBiometricEnabled(boolean enabled) {
-        secureSharedPreferences.edit().putBoolean("biometric_enabled", enabled).apply();
+        putSecure("biometric_enabled", enabled);
     }
 
     public boolean isBiometricEnabled() {
-        return secureSharedPreferences.getBoolean("biometric_enabled", false);
+        return secureBoolean("biometric_enabled", false);
     }
 
     // App lock methods
     public void setAppLockPassword(String password) {
         String hash = EncryptionUtils.hashPassword(password);
         if (hash != null) {
-            secureSharedPreferences.edit().putString("app_lock_hash", hash).apply();
+            putSecure("app_lock_hash", hash);
         }
     }
 
     public boolean validateAppLockPassword(String password) {
-        String storedHash = secureSharedPreferences.getString("app_lock_hash", null);
+        String storedHash = secureString("app_lock_hash");
         return storedHash != null && EncryptionUtils.validatePassword(password, storedHash);
     }
 
     public boolean isAppLockEnabled() {
-        return secureSharedPreferences.contains("app_lock_hash");
+        return secure().containsKey("app_lock_hash");
     }
 
     public void clearAppLock() {
-        secureSharedPreferences.edit()
-                .remove("app_lock_hash")
-                .remove("biometric_enabled")
-                .apply();
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("app_lock_hash", REMOVED);
+        changes.put("biometric_enabled", REMOVED);
+        edit(true, changes);
     }
 
 
     // 🔑 Encryption Key Management
     public void storeRoomKey(String roomId, SecretKey secretKey) {
         String keyString = EncryptionUtils.keyToString(secretKey);
-        secureSharedPreferences.edit().putString("room_key_" + roomId, keyString).apply();
+        putSecure("room_key_" + roomId, keyString);
     }
 
     public SecretKey getRoomKey(String roomId) {
-        String keyString = secureSharedPreferences.getString("room_key_" + roomId, null);
+        String keyString = secureString("room_key_" + roomId);
         if (keyString != null) {
             return EncryptionUtils.stringToKey(keyString);
         }
@@ -102,242 +300,263 @@ public class SecurePrefsManager {
 
     // 🔐 Cipher Key Management
     public void storeCipherKey(String chatId, String cipherKey) {
-        secureSharedPreferences.edit().putString("cipher_key_" + chatId, cipherKey).apply();
+        putSecure("cipher_key_" + chatId, cipherKey);
     }
 
     public String getCipherKey(String chatId) {
-        return secureSharedPreferences.getString("cipher_key_" + chatId, null);
+        return secureString("cipher_key_" + chatId);
     }
 
     // 📧 Secret Inbox Methods
     public void setSecretInboxPassword(String password) {
         String hash = EncryptionUtils.hashPassword(password);
         if (hash != null) {
-            secureSharedPreferences.edit().putString("secret_inbox_hash", hash).apply();
+            putSecure("secret_inbox_hash", hash);
         }
     }
 
     public boolean validateSecretInboxPassword(String password) {
-        String storedHash = secureSharedPreferences.getString("secret_inbox_hash", null);
+        String storedHash = secureString("secret_inbox_hash");
         return storedHash != null && EncryptionUtils.validatePassword(password, storedHash);
     }
 
     public boolean isSecretInboxEnabled() {
-        return secureSharedPreferences.getBoolean("secret_inbox_enabled", false);
+        return secureBoolean("secret_inbox_enabled", false);
     }
 
     public void setSecretInboxEnabled(boolean enabled) {
-        secureSharedPreferences.edit().putBoolean("secret_inbox_enabled", enabled).apply();
+        putSecure("secret_inbox_enabled", enabled);
     }
 
     // 🔒 Privacy Settings
     public void setSilentMode(boolean enabled) {
-        regularSharedPreferences.edit().putBoolean("silent_mode", enabled).apply();
+        putRegular("silent_mode", enabled);
     }
 
     public boolean isSilentModeEnabled() {
-        return regularSharedPreferences.getBoolean("silent_mode", false);
+        return get(regular(), "silent_mode", false, Boolean.class);
     }
 
     public void setReadReceiptsEnabled(boolean enabled) {
-        regularSharedPreferences.edit().putBoolean("read_receipts", enabled).apply();
+        putRegular("read_receipts", enabled);
     }
 
     public boolean areReadReceiptsEnabled() {
-        return regularSharedPreferences.getBoolean("read_receipts", true);
+        return get(regular(), "read_receipts", true, Boolean.class);
     }
 
     public void setTypingIndicatorsEnabled(boolean enabled) {
-        regularSharedPreferences.edit().putBoolean("typing_indicators", enabled).apply();
+        putRegular("typing_indicators", enabled);
     }
 
     public boolean areTypingIndicatorsEnabled() {
-        return regularSharedPreferences.getBoolean("typing_indicators", true);
+        return get(regular(), "typing_indicators", true, Boolean.class);
     }
 
     public void setVanishCallsEnabled(boolean enabled) {
-        regularSharedPreferences.edit().putBoolean("vanish_calls", enabled).apply();
+        putRegular("vanish_calls", enabled);
     }
 
     public boolean isVanishCallsEnabled() {
-        return regularSharedPreferences.getBoolean("vanish_calls", true);
+        return get(regular(), "vanish_calls", true, Boolean.class);
     }
 
     public void setScreenshotProtectionEnabled(boolean enabled) {
-        regularSharedPreferences.edit().putBoolean("screenshot_protection", enabled).apply();
+        putRegular("screenshot_protection", enabled);
     }
 
     public boolean isScreenshotProtectionEnabled() {
-        return regularSharedPreferences.getBoolean("screenshot_protection", true);
+        return get(regular(), "screenshot_protection", true, Boolean.class);
     }
 
     // 👤 User Preferences
     public void setCurrentPersonaId(String personaId) {
-        regularSharedPreferences.edit().putString("current_persona_id", personaId).apply();
+        putRegular("current_persona_id", personaId);
     }
 
     public String getCurrentPersonaId() {
-        return regularSharedPreferences.getString("current_persona_id", null);
+        return get(regular(), "current_persona_id", null, String.class);
     }
 
     public void setLastRoom(String roomId) {
-        regularSharedPreferences.edit().putString("last_room", roomId).apply();
+        putRegular("last_room", roomId);
     }
 
     public String getLastRoom() {
-        return regularSharedPreferences.getString("last_room", null);
+        return get(regular(), "last_room", null, String.class);
     }
 
     // 🎨 Theme & Appearance
     public void setDarkModeEnabled(boolean enabled) {
-        regularSharedPreferences.edit().putBoolean("dark_mode", enabled).apply();
+        putRegular("dark_mode", enabled);
     }
 
     public boolean isDarkModeEnabled() {
-        return regularSharedPreferences.getBoolean("dark_mode", true);
+        return get(regular(), "dark_mode", true, Boolean.class);
     }
 
     public void setVibeScore(String userId, int score) {
-        regularSharedPreferences.edit().putInt("vibe_score_" + userId, score).apply();
+        putRegular("vibe_score_" + userId, score);
     }
 
     public int getVibeScore(String userId) {
-        return regularSharedPreferences.getInt("vibe_score_" + userId, 0);
+        return get(regular(), "vibe_score_" + userId, 0, Integer.class);
     }
 
     // 🔄 Session Management
     public void setUserLoggedIn(boolean loggedIn) {
-        regularSharedPreferences.edit().putBoolean("user_logged_in", loggedIn).apply();
+        putRegular("user_logged_in", loggedIn);
     }
 
     public boolean isUserLoggedIn() {
-        return regularSharedPreferences.getBoolean("user_logged_in", false);
+        return get(regular(), "user_logged_in", false, Boolean.class);
     }
 
     public void setLastActive(long timestamp) {
-        regularSharedPreferences.edit().putLong("last_active", timestamp).apply();
+        putRegular("last_active", timestamp);
     }
 
     public long getLastActive() {
-        return regularSharedPreferences.getLong("last_active", 0);
+        return get(regular(), "last_active", 0L, Long.class);
     }
 
     // 🗑️ Data Management
     public void clearAllData() {
         // Clear secure preferences
-        secureSharedPreferences.edit().clear().apply();
+        edit(true, removalsOf(secure(), ""));
+        EncryptionUtils.clearDerivedKeys();
 
         // Clear regular preferences (except some settings)
-        SharedPreferences.Editor editor = regularSharedPreferences.edit();
-
         // Keep theme preference
         boolean darkMode = isDarkModeEnabled();
 
-        editor.clear();
+        Map<String, Object> changes = removalsOf(regular(), "");
 
         // Restore theme preference
         if (darkMode) {
-            editor.putBoolean("dark_mode", true);
+            changes.put("dark_mode", true);
         }
 
-        editor.apply();
+        edit(false, changes);
     }
 
     public void clearSessionData() {
         // Clear session-specific data but keep settings
-        regularSharedPreferences.edit()
-                .remove("user_logged_in")
-                .remove("last_active")
-                .remove("current_persona_id")
-                .remove("last_room")
-                .remove("temp_keys")
-                .remove("session_tokens")
-                .apply();
+        Map<String, Object> changes = new HashMap<>();
+        for (String key : new String[]{"user_logged_in", "last_active", "current_persona_id",
+                "last_room", "temp_keys", "session_tokens"}) {
+            changes.put(key, REMOVED);
+        }
+        edit(false, changes);
     }
 
     public void clearEncryptionKeys() {
-        // Remove all encryption keys
-        SharedPreferences.Editor editor = secureSharedPreferences.edit();
-
-        // Remove room keys
-        for (String key : secureSharedPreferences.getAll().keySet()) {
-            if (key.startsWith("room_key_") || key.startsWith("cipher_key_")) {
-                editor.remove(key);
-            }
-        }
-
-        editor.apply();
+        // Remove all encryption keys: room keys and cipher keys
+        edit(true, removalsOf(secure(), "room_key_", "cipher_key_"));
+        EncryptionUtils.clearDerivedKeys();
     }
 
     // 📊 Analytics & Usage
-    public void incrementMessageCount() {
-        int count = regularSharedPreferences.getInt("total_messages", 0);
-        regularSharedPreferences.edit().putInt("total_messages", count + 1).apply();
+    public synchronized void incrementMessageCount() {
+        int count = get(regular(), "total_messages", 0, Integer.class);
+        putRegular("total_messages", count + 1);
     }
 
     public int getTotalMessages() {
-        return regularSharedPreferences.getInt("total_messages", 0);
+        return get(regular(), "total_messages", 0, Integer.class);
     }
 
-    public void incrementCallCount() {
-        int count = regularSharedPreferences.getInt("total_calls", 0);
-        regularSharedPreferences.edit().putInt("total_calls", count + 1).apply();
+    public synchronized void incrementCallCount() {
+        int count = get(regular(), "total_calls", 0, Integer.class);
+        putRegular("total_calls", count + 1);
     }
 
     public int getTotalCalls() {
-        return regularSharedPreferences.getInt("total_calls", 0);
+        return get(regular(), "total_calls", 0, Integer.class);
     }
 
     public void setFirstLaunch(boolean firstLaunch) {
-        regularSharedPreferences.edit().putBoolean("first_launch", firstLaunch).apply();
+        putRegular("first_launch", firstLaunch);
     }
 
     public boolean isFirstLaunch() {
-        return regularSharedPreferences.getBoolean("first_launch", true);
+        return get(regular(), "first_launch", true, Boolean.class);
     }
 
     // 🔍 Debug & Development
     public void setDebugMode(boolean enabled) {
-        regularSharedPreferences.edit().putBoolean("debug_mode", enabled).apply();
+        putRegular("debug_mode", enabled);
     }
 
     public boolean isDebugMode() {
-        return regularSharedPreferences.getBoolean("debug_mode", false);
+        return get(regular(), "debug_mode", false, Boolean.class);
     }
 
     public void setLastError(String error) {
-        regularSharedPreferences.edit().putString("last_error", error).apply();
+        putRegular("last_error", error);
     }
 
     public String getLastError() {
-        return regularSharedPreferences.getString("last_error", null);
+        return get(regular(), "last_error", null, String.class);
     }
     // Cache for daily username styles
     public void cacheStyle(String key, String styleJson) {
-        secureSharedPreferences.edit().putString("style_" + key, styleJson).apply();
+        putSecure("style_" + key, styleJson);
     }
 
     public String getCachedStyle(String key) {
-        return secureSharedPreferences.getString("style_" + key, null);
+        return secureString("style_" + key);
+    }
+
+    // Drop every cached style whose key doesn't end with keySuffix, in a single write
+    public void removeCachedStylesExcept(String keySuffix) {
+        Map<String, Object> removals = removalsOf(secure(), "style_");
+        removals.keySet().removeIf(key -> key.endsWith(keySuffix));
+        if (!removals.isEmpty()) {
+            edit(true, removals);
+        }
+    }
+
+    // Passphrase of the local SQLCipher message store, generated on first use
+    public String getLocalStorePassphrase() {
+        // Not synchronized on this: waiting for the flush while holding the monitor would block it
+        synchronized (passphraseLock) {
+            String passphrase = secureString("local_store_passphrase");
+            if (passphrase == null) {
+                byte[] bytes = new byte[32];
+                new SecureRandom().nextBytes(bytes);
+                passphrase = Base64.encodeToString(bytes, Base64.NO_WRAP);
+                putSecure("local_store_passphrase", passphrase);
+                // The store's contents are unreadable without it, so it must be on disk before use
+                awaitWrites();
+            }
+            return passphrase;
+        }
     }
 
     // Blink stories settings
     public void setStoriesEnabled(boolean enabled) {
-        secureSharedPreferences.edit().putBoolean("stories_enabled", enabled).apply();
+        putSecure("stories_enabled", enabled);
     }
 
     public boolean areStoriesEnabled() {
-        return secureSharedPreferences.getBoolean("stories_enabled", true);
+        return secureBoolean("stories_enabled", true);
     }
 
     // Whisper link history
-    public void addWhisperLinkToHistory(String linkCode) {
+    public synchronized void addWhisperLinkToHistory(String linkCode) {
         Set<String> history = getWhisperLinkHistory();
         history.add(linkCode);
-        secureSharedPreferences.edit().putStringSet("whisper_link_history", history).apply();
+        putSecure("whisper_link_history", history);
     }
 
     public Set<String> getWhisperLinkHistory() {
-        return secureSharedPreferences.getStringSet("whisper_link_history", new HashSet<>());
+        // A copy, so callers can't modify the snapshot
+        Set<?> history = get(secure(), "whisper_link_history", Collections.emptySet(), Set.class);
+        Set<String> copy = new HashSet<>();
+        for (Object linkCode : history) {
+            copy.add((String) linkCode);
+        }
+        return copy;
     }
 }
\ No newline at end of file
@@ -1,25 +1,26 @@
 package com.m3.veilchat.viewmodels;
 
+import android.app.Application;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.ViewModel;
 import com.m3.veilchat.models.ChatRoom;
 import com.m3.veilchat.models.Message;
 import com.m3.veilchat.repositories.ChatRepository;
 import java.util.List;
 
-public class ChatViewModel extends ViewModel {
+public class ChatViewModel extends AndroidViewModel {
     private final ChatRepository chatRepository;
 
-    public ChatViewModel() {
-        chatRepository = new ChatRepository();
+    public ChatViewModel(@NonNull Application application) {
+        super(application);
+        chatRepository = ChatRepository.getInstance(application);
     }
 
-    public void loadPublicRooms() {
-        chatRepository.loadPublicRooms();
-    }
-
-    public void loadUserRooms() {
-        chatRepository.loadUserRooms();
+    // Listeners are shared across screens and released when the owner is destroyed
+    public void loadUserRooms(LifecycleOwner owner) {
+        chatRepository.loadUserRooms(owner);
     }
 
     public void createRoom(ChatRoom room) {
@@ -30,20 +31,44 @@ public class ChatViewModel extends ViewModel {
         chatRepository.joinRoom(roomId);
     }
 
+    public void exitRoom(String roomId) {
+        chatRepository.exitRoom(roomId);
+    }
+
     public void leaveRoom(String roomId) {
         chatRepository.leaveRoom(roomId);
     }
 
-    public void loadRoomMessages(String roomId) {
-        chatRepository.loadRoomMessages(roomId);
+    public void loadRoomMessages(LifecycleOwner owner, String roomId) {
+        chatRepository.loadRoomMessages(owner, roomId);
+    }
+
+    public void loadOlderMessages() {
+        chatRepository.loadOlderMessages();
     }
 
     public void sendMessage(String roomId, String content, String rule) {
         chatRepository.sendMessage(roomId, content, rule);
     }
 
-    public LiveData<List<ChatRoom>> getPublicRooms() {
-        return chatRepository.getPublicRooms();
+    public void discoverRooms(String query, String moodTag, String interestTag) {
+        chatRepository.discoverRooms(query, moodTag, interestTag);
+    }
+
+    public void loadMoreDiscoverRooms() {
+        chatRepository.loadMoreDiscoverRooms();
+    }
+
+    public void searchMessages(String query) {
+        chatRepository.searchMessages(query);
+    }
+
+    public LiveData<List<ChatRoom>> getDiscoverRooms() {
+        return chatRepository.getDiscoverRooms();
+    }
+
+    public LiveData<Boolean> getHasMoreDiscoverRooms() {
+        return chatRepository.getHasMoreDiscoverRooms();
     }
 
     public LiveData<List<ChatRoom>> getUserRooms() {
@@ -54,6 +79,14 @@ public class ChatViewModel extends ViewModel {
         return chatRepository.getRoomMessages();
     }
 
+    public LiveData<Boolean> getHasMoreMessages() {
+        return chatRepository.getHasMoreMessages();
+    }
+
+    public LiveData<List<Message>> getMessageSearchResults() {
+        return chatRepository.getMessageSearchResults();
+    }
+
     public LiveData<ChatRoom> getRoomCreationStatus() {
         return chatRepository.getRoomCreationStatus();
     }
@@ -1,89 +1,52 @@
 package com.m3.veilchat.viewmodels;
 
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModel;
-import androidx.lifecycle.MutableLiveData;
 import com.m3.veilchat.repositories.ConfessionRepository;
 import com.m3.veilchat.models.Confession;
 import java.util.List;
 
 public class ConfessionViewModel extends ViewModel {
-    private ConfessionRepository confessionRepository;
-
-    private MutableLiveData<List<Confession>> confessions = new MutableLiveData<>();
-    private MutableLiveData<Boolean> isLoading = new MutableLiveData<>();
-    private MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private final ConfessionRepository confessionRepository;
 
     public ConfessionViewModel() {
         confessionRepository = new ConfessionRepository();
-        isLoading.setValue(false);
     }
 
     public void loadConfessions() {
-        isLoading.setValue(true);
-        confessionRepository.loadConfessions(new ConfessionRepository.ConfessionListener() {
-            @Override
-            public void onConfessionsLoaded(List<Confession> confessionList) {
-                isLoading.setValue(false);
-                confessions.setValue(confessionList);
-            }
+        confessionRepository.loadConfessions();
+    }
 
-            @Override
-            public void onError(String error) {
-                isLoading.setValue(false);
-                errorMessage.setValue(error);
-            }
-        });
+    public void loadOlderConfessions() {
+        confessionRepository.loadOlderConfessions();
     }
 
-    public void postConfession(Confession confession) {
-        isLoading.setValue(true);
-        confessionRepository.postConfession(confession, new ConfessionRepository.ConfessionPostListener() {
-            @Override
-            public void onConfessionPosted(String confessionId) {
-                isLoading.setValue(false);
-                // Reload confessions to show the new one
-                loadConfessions();
-            }
+    public void loadTrendingConfessions() {
+        confessionRepository.loadTrendingConfessions();
+    }
 
-            @Override
-            public void onError(String error) {
-                isLoading.setValue(false);
-                errorMessage.setValue(error);
-            }
-        });
+    public void postConfession(String content, String moodTag) {
+        confessionRepository.postConfession(content, moodTag);
     }
 
     public void likeConfession(String confessionId) {
-        confessionRepository.likeConfession(confessionId, new ConfessionRepository.LikeListener() {
-            @Override
-            public void onLiked() {
-                // Refresh the list to update like counts
-                loadConfessions();
-            }
-
-            @Override
-            public void onError(String error) {
-                errorMessage.setValue(error);
-            }
-        });
+        // The repository shows the new count right away; no reload needed
+        confessionRepository.likeConfession(confessionId);
     }
 
     public void replyToConfession(String confessionId, String message) {
-        confessionRepository.replyToConfession(confessionId, message, new ConfessionRepository.ReplyListener() {
-            @Override
-            public void onReplied() {
-                // Handle successful reply
-            }
-
-            @Override
-            public void onError(String error) {
-                errorMessage.setValue(error);
-            }
-        });
+        confessionRepository.replyToConfession(confessionId, message);
     }
 
     // LiveData Getters
-    public MutableLiveData<List<Confession>> getConfessions() { return confessions; }
-    public MutableLiveData<Boolean> getIsLoading() { return isLoading; }
-    public MutableLiveData<String> getErrorMessage() { return errorMessage; }
-}
\ No newline at end of file
+    public LiveData<List<Confession>> getConfessions() { return confessionRepository.getConfessions(); }
+    public LiveData<List<Confession>> getTrendingConfessions() { return confessionRepository.getTrendingConfessions(); }
+    public LiveData<Boolean> getHasMoreConfessions() { return confessionRepository.getHasMoreConfessions(); }
+    public LiveData<String> getErrorMessage() { return confessionRepository.getErrorMessage(); }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        confessionRepository.cleanup();
+    }
+}
@@ -0,0 +1,28 @@
+package com.m3.veilchat.repositories;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LocalMessageStoreTest {
+
+    @Test
+    public void toMatchExpression_prefixMatchesEveryWord() {
+        assertEquals("content:hello* content:wor*", LocalMessageStore.toMatchExpression("Hello  wor"));
+    }
+
+    @Test
+    public void toMatchExpression_dropsFtsSyntax() {
+        assertEquals("content:ab* content:or* content:c*", LocalMessageStore.toMatchExpression("\"a*b\" OR- (c)"));
+    }
+
+    @Test
+    public void toMatchExpression_keepsNonAsciiLetters() {
+        assertEquals("content:café*", LocalMessageStore.toMatchExpression("café"));
+    }
+
+    @Test
+    public void toMatchExpression_emptyForBlankQuery() {
+        assertEquals("", LocalMessageStore.toMatchExpression("  *** "));
+    }
+}
@@ -0,0 +1,62 @@
+package com.m3.veilchat.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EmojiCipherCodecTest {
+    private static final String BASE64_CHARS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/=\n";
+
+    @Test
+    public void roundTrip_randomBase64Payloads() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomBase64(random, random.nextInt(512));
+            assertEquals(text, EmojiCipherCodec.decode(EmojiCipherCodec.encode(text)));
+        }
+    }
+
+    @Test
+    public void roundTrip_keepsCharactersOutsideAlphabet() {
+        String text = "héllo wörld ✓ 😺 \uD83D";
+        assertEquals(text, EmojiCipherCodec.decode(EmojiCipherCodec.encode(text)));
+    }
+
+    @Test
+    public void encode_matchesLegacyWireFormat() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            String text = randomBase64(random, random.nextInt(256));
+            assertEquals(LegacyEmojiCodec.textToEmoji(text), EmojiCipherCodec.encode(text));
+        }
+    }
+
+    @Test
+    public void decode_handlesVariationSelectorEmoji() {
+        // 'm' maps to "☹️", which is U+2639 followed by the variation selector U+FE0F
+        String encoded = EmojiCipherCodec.encode("amz");
+        assertTrue(encoded.contains("\u2639\uFE0F"));
+        assertEquals("amz", EmojiCipherCodec.decode(encoded));
+
+        // Some keyboards and platforms drop or add the selector
+        assertEquals("amz", EmojiCipherCodec.decode(encoded.replace("\uFE0F", "")));
+        assertEquals("aAz", EmojiCipherCodec.decode(EmojiCipherCodec.encode("a") + "😀\uFE0F" + EmojiCipherCodec.encode("z")));
+    }
+
+    @Test
+    public void decode_emptyString() {
+        assertEquals("", EmojiCipherCodec.decode(""));
+        assertEquals("", EmojiCipherCodec.encode(""));
+    }
+
+    private static String randomBase64(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(BASE64_CHARS.charAt(random.nextInt(BASE64_CHARS.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package com.m3.veilchat.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HotScoreTest {
+    private static final long POSTED_AT = 1_700_000_000_000L;
+    private static final long DECAY_MILLIS = (long) (HotScore.DECAY_SECONDS * 1000);
+
+    @Test
+    public void moreEngagementRanksHigher() {
+        assertTrue(HotScore.of(10, 0, POSTED_AT) > HotScore.of(9, 0, POSTED_AT));
+    }
+
+    @Test
+    public void replyWeighsTwoLikes() {
+        assertEquals(HotScore.of(4, 0, POSTED_AT), HotScore.of(2, 1, POSTED_AT), 1e-9);
+    }
+
+    @Test
+    public void noEngagementScoresLikeOne() {
+        assertEquals(HotScore.of(0, 0, POSTED_AT), HotScore.of(1, 0, POSTED_AT), 1e-9);
+    }
+
+    @Test
+    public void tenfoldEngagementOffsetsOneDecayPeriod() {
+        assertEquals(HotScore.of(100, 0, POSTED_AT),
+                HotScore.of(10, 0, POSTED_AT + DECAY_MILLIS), 1e-9);
+    }
+
+    @Test
+    public void newerPostOutranksOlderWithSameEngagement() {
+        assertTrue(HotScore.of(5, 1, POSTED_AT + 60_000) > HotScore.of(5, 1, POSTED_AT));
+    }
+}
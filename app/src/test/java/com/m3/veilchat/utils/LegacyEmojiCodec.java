@@ -0,0 +1,56 @@
+package com.m3.veilchat.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The HashMap/substring emoji codec EmojiCipherCodec replaced, kept to check
+ * wire compatibility and as the baseline in EmojiCodecBenchmark.
+ */
+public class LegacyEmojiCodec {
+    private static final Map<String, String> emojiMap = new HashMap<>();
+    private static final Map<String, String> reverseEmojiMap = new HashMap<>();
+
+    static {
+        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < characters.length(); i++) {
+            emojiMap.put(String.valueOf(characters.charAt(i)), EmojiCipherCodec.EMOJIS[i]);
+            reverseEmojiMap.put(EmojiCipherCodec.EMOJIS[i], String.valueOf(characters.charAt(i)));
+        }
+    }
+
+    public static String textToEmoji(String text) {
+        StringBuilder emojiBuilder = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            String charStr = String.valueOf(c);
+            if (emojiMap.containsKey(charStr)) {
+                emojiBuilder.append(emojiMap.get(charStr));
+            } else {
+                emojiBuilder.append(c);
+            }
+        }
+        return emojiBuilder.toString();
+    }
+
+    public static String emojiToText(String emojiText) {
+        StringBuilder textBuilder = new StringBuilder();
+        for (int i = 0; i < emojiText.length(); i++) {
+            if (i + 1 < emojiText.length()) {
+                String possibleEmoji = emojiText.substring(i, i + 2);
+                if (reverseEmojiMap.containsKey(possibleEmoji)) {
+                    textBuilder.append(reverseEmojiMap.get(possibleEmoji));
+                    i++;
+                    continue;
+                }
+            }
+
+            String singleChar = emojiText.substring(i, i + 1);
+            if (reverseEmojiMap.containsKey(singleChar)) {
+                textBuilder.append(reverseEmojiMap.get(singleChar));
+            } else {
+                textBuilder.append(singleChar);
+            }
+        }
+        return textBuilder.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.m3.veilchat.utils;
+
+import com.m3.veilchat.models.ChatRoom;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RoomSearchEngineTest {
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+    private final BlockingQueue<List<ChatRoom>> results = new LinkedBlockingQueue<>();
+    private final RoomSearchEngine engine = new RoomSearchEngine(worker, Runnable::run, 20, results::add);
+
+    @After
+    public void shutDown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    public void setRooms_publishesEverythingForEmptyQuery() throws Exception {
+        List<ChatRoom> rooms = Arrays.asList(room("1", "Music lounge"), room("2", "Tech talk"));
+        engine.setRooms(rooms);
+        assertEquals(rooms, next());
+    }
+
+    @Test
+    public void setQuery_filtersByWordPrefixes() throws Exception {
+        ChatRoom music = room("1", "Lo-fi music lounge");
+        engine.setRooms(Arrays.asList(music, room("2", "Tech talk")));
+        next();
+
+        engine.setQuery("LOU mus");
+        assertEquals(Arrays.asList(music), next());
+    }
+
+    @Test
+    public void setQuery_debouncesRapidTyping() throws Exception {
+        ChatRoom tech = room("2", "Tech talk");
+        engine.setRooms(Arrays.asList(room("1", "Music"), tech));
+        next();
+
+        engine.setQuery("m");
+        engine.setQuery("mu");
+        engine.setQuery("te");
+        assertEquals(Arrays.asList(tech), next());
+        assertNull(results.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void setRooms_picksUpRenamedRoom() throws Exception {
+        engine.setQuery("jazz");
+        engine.setRooms(Arrays.asList(room("1", "Music")));
+        List<ChatRoom> latest = drainLatest();
+        assertTrue(latest.isEmpty());
+
+        ChatRoom renamed = room("1", "Jazz club");
+        engine.setRooms(Arrays.asList(renamed));
+        assertEquals(Arrays.asList(renamed), next());
+    }
+
+    private List<ChatRoom> next() throws InterruptedException {
+        List<ChatRoom> next = results.poll(1, TimeUnit.SECONDS);
+        assertNotNull("no results delivered", next);
+        return next;
+    }
+
+    // Wait for the debounced query and return the last result delivered
+    private List<ChatRoom> drainLatest() throws InterruptedException {
+        List<ChatRoom> latest = next();
+        List<ChatRoom> more;
+        while ((more = results.poll(100, TimeUnit.MILLISECONDS)) != null) {
+            latest = more;
+        }
+        return latest;
+    }
+
+    private static ChatRoom room(String id, String name) {
+        ChatRoom room = new ChatRoom(name, "", "creator", "public");
+        room.setRoomId(id);
+        return room;
+    }
+}
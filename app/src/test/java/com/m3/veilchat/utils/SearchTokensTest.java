@@ -0,0 +1,51 @@
+package com.m3.veilchat.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchTokensTest {
+
+    @Test
+    public void words_lowercasesAndSplitsOnPunctuation() {
+        assertEquals(Arrays.asList("late", "night", "chat", "2am"),
+                SearchTokens.words("Late-night CHAT", "late night @ 2am"));
+    }
+
+    @Test
+    public void words_ignoresNullAndEmpty() {
+        assertEquals(Collections.emptyList(), SearchTokens.words(null, "", "  !! "));
+    }
+
+    @Test
+    public void prefixes_coverEveryWordPrefix() {
+        assertEquals(Arrays.asList("g", "ga", "gam", "game", "games", "n", "ni", "nig"),
+                SearchTokens.prefixes("Games", "nig games"));
+    }
+
+    @Test
+    public void prefixes_areCappedInLength() {
+        List<String> prefixes = SearchTokens.prefixes("supercalifragilistic");
+        assertEquals(SearchTokens.MAX_PREFIX_LENGTH, prefixes.size());
+        assertEquals("supercalifragil", prefixes.get(prefixes.size() - 1));
+    }
+
+    @Test
+    public void serverToken_picksLongestWordTruncated() {
+        assertEquals("music", SearchTokens.serverToken(Arrays.asList("lo", "music", "fi")));
+        assertEquals("supercalifragil", SearchTokens.serverToken(Arrays.asList("supercalifragilistic")));
+        assertNull(SearchTokens.serverToken(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void matchesAll_requiresEveryQueryWordAsPrefix() {
+        List<String> roomWords = SearchTokens.words("Lo-fi music lounge");
+        assertTrue(SearchTokens.matchesAll(Arrays.asList("mus", "lou"), roomWords));
+        assertFalse(SearchTokens.matchesAll(Arrays.asList("mus", "jazz"), roomWords));
+        assertTrue(SearchTokens.matchesAll(Collections.<String>emptyList(), roomWords));
+    }
+}
@@ -0,0 +1,38 @@
+package com.m3.veilchat.benchmark;
+
+import com.m3.veilchat.managers.DailyStyleSeed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+// Seed derivation behind UsernameStyleManager.getDailySeed, run once per sender per day
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DailyStyleSeedBenchmark {
+    private String userId;
+    private String date;
+
+    @Setup
+    public void setup() {
+        // Firebase Auth uids are 28 characters
+        userId = Payloads.base64Text(28);
+        date = "2026-10-18";
+    }
+
+    @Benchmark
+    public long getDailySeed() {
+        return DailyStyleSeed.forUser(userId, date);
+    }
+}
@@ -0,0 +1,58 @@
+package com.m3.veilchat.benchmark;
+
+import com.m3.veilchat.utils.EmojiCipherCodec;
+import com.m3.veilchat.utils.LegacyEmojiCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+// The emoji codec alone, without the AES step around it, next to the map-based codec it replaced
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmojiCodecBenchmark {
+    // Base64 lengths of the encrypted payloads in EncryptionBenchmark
+    @Param({"64", "368", "2752"})
+    public int base64Length;
+
+    private String base64Text;
+    private String emojiText;
+
+    @Setup
+    public void setup() {
+        base64Text = Payloads.base64Text(base64Length);
+        emojiText = EmojiCipherCodec.encode(base64Text);
+    }
+
+    @Benchmark
+    public String encode() {
+        return EmojiCipherCodec.encode(base64Text);
+    }
+
+    @Benchmark
+    public String decode() {
+        return EmojiCipherCodec.decode(emojiText);
+    }
+
+    @Benchmark
+    public String legacyEncode() {
+        return LegacyEmojiCodec.textToEmoji(base64Text);
+    }
+
+    @Benchmark
+    public String legacyDecode() {
+        return LegacyEmojiCodec.emojiToText(emojiText);
+    }
+}
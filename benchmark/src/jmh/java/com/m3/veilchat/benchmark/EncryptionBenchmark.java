@@ -0,0 +1,72 @@
+package com.m3.veilchat.benchmark;
+
+import com.m3.veilchat.utils.EncryptionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message crypto paths: AES encrypt/decrypt for "encrypted" rooms,
+ * the emoji cipher for "cipher" rooms, and password hashing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionBenchmark {
+    // Short chat line, long chat line, pasted paragraph
+    @Param({"32", "256", "2048"})
+    public int payloadLength;
+
+    private String plainText;
+    private SecretKey roomKey;
+    private String encryptedText;
+    private String cipherKey;
+    private String emojiText;
+
+    @Setup
+    public void setup() throws Exception {
+        plainText = Payloads.chatText(payloadLength);
+        roomKey = EncryptionUtils.generateKey();
+        encryptedText = EncryptionUtils.encrypt(plainText, roomKey);
+        cipherKey = EncryptionUtils.generateCipherKey();
+        emojiText = EncryptionUtils.encryptWithEmojiCipher(plainText, cipherKey);
+    }
+
+    @Benchmark
+    public String encrypt() throws Exception {
+        return EncryptionUtils.encrypt(plainText, roomKey);
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception {
+        return EncryptionUtils.decrypt(encryptedText, roomKey);
+    }
+
+    @Benchmark
+    public String encryptWithEmojiCipher() {
+        return EncryptionUtils.encryptWithEmojiCipher(plainText, cipherKey);
+    }
+
+    @Benchmark
+    public String decryptWithEmojiCipher() {
+        return EncryptionUtils.decryptWithEmojiCipher(emojiText, cipherKey);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return EncryptionUtils.hashPassword(plainText);
+    }
+}
@@ -0,0 +1,28 @@
+package com.m3.veilchat.benchmark;
+
+import java.util.Random;
+
+// Deterministic benchmark inputs so runs are comparable
+final class Payloads {
+    private static final String CHAT_CHARS = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ .,!?'0123456789";
+    private static final String BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    private Payloads() {}
+
+    static String chatText(int length) {
+        return randomText(CHAT_CHARS, length, 1);
+    }
+
+    static String base64Text(int length) {
+        return randomText(BASE64_CHARS, length, 2);
+    }
+
+    private static String randomText(String chars, int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package android.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JVM stand-in for android.util.Base64 covering the calls EncryptionUtils makes.
+ * DEFAULT matches Android's output: lines wrapped at 76 chars, each ending in '\n'.
+ */
+public class Base64 {
+    public static final int DEFAULT = 0;
+    public static final int NO_WRAP = 2;
+
+    private static final int LINE_LENGTH = 76;
+
+    public static String encodeToString(byte[] input, int flags) {
+        String encoded = java.util.Base64.getEncoder().encodeToString(input);
+        if ((flags & NO_WRAP) != 0) {
+            return encoded;
+        }
+        StringBuilder wrapped = new StringBuilder(encoded.length() + encoded.length() / LINE_LENGTH + 1);
+        for (int start = 0; start < encoded.length(); start += LINE_LENGTH) {
+            wrapped.append(encoded, start, Math.min(encoded.length(), start + LINE_LENGTH)).append('\n');
+        }
+        return wrapped.toString();
+    }
+
+    public static byte[] decode(String input, int flags) {
+        return java.util.Base64.getMimeDecoder().decode(input.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,11 @@
+// Same formula as com.m3.veilchat.utils.HotScore; keep the two in step.
+// Engagement counts logarithmically (a reply weighs two likes) and every DECAY_SECONDS of
+// post time adds one point, so a score only changes when the counts do.
+const DECAY_SECONDS = 45000;
+
+function hotScore(likeCount, replyCount, createdAtMillis) {
+  const engagement = Math.max(1, likeCount + 2 * replyCount);
+  return Math.log10(engagement) + createdAtMillis / 1000 / DECAY_SECONDS;
+}
+
+module.exports = { hotScore };
@@ -0,0 +1,59 @@
+const { onSchedule } = require("firebase-functions/v2/scheduler");
+const { logger } = require("firebase-functions");
+const { initializeApp } = require("firebase-admin/app");
+const { getFirestore, AggregateField, Timestamp } = require("firebase-admin/firestore");
+const { hotScore } = require("./hotScore");
+
+initializeApp();
+const db = getFirestore();
+
+// Clients only increment a like or reply counter shard under their confession. Once a minute
+// this job sums the shards of every confession whose shards changed since the previous run and
+// writes likeCount, replyCount and hotScore, so a confession document takes at most one write
+// per minute however many people like or reply to it at once.
+const CURSOR = db.collection("rollups").doc("confession_counts");
+// Rescan a little before the previous run so a shard committed while it ran isn't missed;
+// summing a confession twice is harmless
+const OVERLAP_MS = 60 * 1000;
+const SHARD_COLLECTIONS = ["like_shards", "reply_shards"];
+
+exports.rollUpConfessionCounts = onSchedule("every 1 minutes", async () => {
+  const startedAt = Timestamp.now();
+  const cursor = await CURSOR.get();
+  const lastRunAt = cursor.exists ? cursor.get("lastRunAt").toMillis() : 0;
+  const since = Timestamp.fromMillis(Math.max(0, lastRunAt - OVERLAP_MS));
+
+  const confessionIds = new Set();
+  for (const shards of SHARD_COLLECTIONS) {
+    const touched = await db.collectionGroup(shards).where("updatedAt", ">", since).select().get();
+    touched.docs.forEach((shard) => confessionIds.add(shard.ref.parent.parent.id));
+  }
+
+  await Promise.all([...confessionIds].map((confessionId) =>
+    rollUp(confessionId).catch((e) => logger.error(`Failed to roll up confession ${confessionId}`, e))));
+
+  await CURSOR.set({ lastRunAt: startedAt });
+  logger.info(`Rolled up ${confessionIds.size} confessions`);
+});
+
+async function rollUp(confessionId) {
+  const confessionRef = db.collection("confessions").doc(confessionId);
+  const [likes, replies, confession] = await Promise.all([
+    sumShards(confessionRef.collection("like_shards")),
+    sumShards(confessionRef.collection("reply_shards")),
+    confessionRef.get(),
+  ]);
+  if (!confession.exists) return;
+
+  const score = hotScore(likes, replies, confession.get("timestamp") || 0);
+  if (confession.get("likeCount") === likes && confession.get("replyCount") === replies
+      && confession.get("hotScore") === score) {
+    return;
+  }
+  await confessionRef.update({ likeCount: likes, replyCount: replies, hotScore: score });
+}
+
+async function sumShards(shards) {
+  const snapshot = await shards.aggregate({ total: AggregateField.sum("count") }).get();
+  return snapshot.data().total || 0;
+}
@@ -0,0 +1,56 @@
+// One-off: prepare confessions posted before counter shards and hotScore existed.
+// - A confession whose likeCount or replyCount was written directly gets it moved into shard 0,
+//   so the rollup, which recomputes the counts from the shards, doesn't reset it.
+// - A confession without hotScore gets one; until then it never shows up in Trending.
+// Uses application default credentials, or the emulator when FIRESTORE_EMULATOR_HOST is set.
+const { initializeApp } = require("firebase-admin/app");
+const { getFirestore, FieldPath } = require("firebase-admin/firestore");
+const { hotScore } = require("../hotScore");
+
+const PAGE_SIZE = 200;
+
+async function main() {
+  initializeApp();
+  const db = getFirestore();
+  let cursor = null;
+  let seeded = 0;
+  let scored = 0;
+  for (;;) {
+    let page = db.collection("confessions").orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+    if (cursor) page = page.startAfter(cursor);
+    const snapshot = await page.get();
+    if (snapshot.empty) break;
+
+    // At most three writes per confession, so a page stays under the 500-write batch limit
+    const batch = db.batch();
+    for (const doc of snapshot.docs) {
+      const likes = doc.get("likeCount") || 0;
+      const replies = doc.get("replyCount") || 0;
+      const seededLikes = likes > 0 && await seedShard(batch, doc.ref.collection("like_shards"), likes);
+      const seededReplies = replies > 0 && await seedShard(batch, doc.ref.collection("reply_shards"), replies);
+      if (seededLikes || seededReplies) seeded++;
+
+      if (typeof doc.get("hotScore") !== "number") {
+        batch.update(doc.ref, { hotScore: hotScore(likes, replies, doc.get("timestamp") || 0) });
+        scored++;
+      }
+    }
+    await batch.commit();
+    cursor = snapshot.docs[snapshot.docs.length - 1];
+  }
+  console.log(`Seeded shards for ${seeded} confessions, added hotScore to ${scored}`);
+}
+
+// Shards that already exist already hold the count, so only untouched confessions are seeded.
+// updatedAt is left out on purpose: the counts on the confession are already right.
+async function seedShard(batch, shards, count) {
+  const existing = await shards.limit(1).get();
+  if (!existing.empty) return false;
+  batch.set(shards.doc("0"), { count });
+  return true;
+}
+
+main().catch((e) => {
+  console.error(e);
+  process.exit(1);
+});
@@ -0,0 +1,73 @@
+// One-off: give rooms created before discovery search the searchTokens field.
+// Rooms without it never match a discovery query that has search text.
+// Uses application default credentials, or the emulator when FIRESTORE_EMULATOR_HOST is set.
+const { initializeApp } = require("firebase-admin/app");
+const { getFirestore, FieldPath } = require("firebase-admin/firestore");
+
+// Same as SearchTokens.MAX_PREFIX_LENGTH
+const MAX_PREFIX_LENGTH = 15;
+const PAGE_SIZE = 500;
+const WORD_CHAR = /[\p{L}\p{Nd}]/u;
+
+// SearchTokens.words: lowercase, split on anything that isn't a letter or digit, no duplicates.
+// Works on UTF-16 code units like the Java version, so both produce the same tokens.
+function words(...texts) {
+  const found = new Set();
+  for (const text of texts) {
+    if (text == null) continue;
+    const lower = text.toLowerCase();
+    let start = -1;
+    for (let i = 0; i <= lower.length; i++) {
+      const wordChar = i < lower.length && WORD_CHAR.test(lower.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        found.add(lower.substring(start, i));
+        start = -1;
+      }
+    }
+  }
+  return [...found];
+}
+
+// SearchTokens.prefixes
+function prefixes(...texts) {
+  const found = new Set();
+  for (const word of words(...texts)) {
+    const max = Math.min(word.length, MAX_PREFIX_LENGTH);
+    for (let length = 1; length <= max; length++) {
+      found.add(word.substring(0, length));
+    }
+  }
+  return [...found];
+}
+
+async function main() {
+  initializeApp();
+  const db = getFirestore();
+  let cursor = null;
+  let updated = 0;
+  for (;;) {
+    let page = db.collection("chat_rooms").orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+    if (cursor) page = page.startAfter(cursor);
+    const snapshot = await page.get();
+    if (snapshot.empty) break;
+
+    const batch = db.batch();
+    let pending = 0;
+    for (const doc of snapshot.docs) {
+      if (Array.isArray(doc.get("searchTokens"))) continue;
+      batch.update(doc.ref, { searchTokens: prefixes(doc.get("name"), doc.get("description")) });
+      pending++;
+    }
+    if (pending > 0) await batch.commit();
+    updated += pending;
+    cursor = snapshot.docs[snapshot.docs.length - 1];
+  }
+  console.log(`Added searchTokens to ${updated} rooms`);
+}
+
+main().catch((e) => {
+  console.error(e);
+  process.exit(1);
+});